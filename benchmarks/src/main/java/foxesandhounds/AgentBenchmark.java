@@ -0,0 +1,138 @@
+package foxesandhounds;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures one action of a single Fox or Hound: a Fox looking for a mate and
+ * a foxhole and giving birth, or a Hound looking for a Fox to eat and a mate
+ * to breed with. Agents take turns in a fixed order, and after each action
+ * the Cells around the agent are put back as they were, so the Field never
+ * drifts away from the density we asked for. Putting them back is part of
+ * what is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentBenchmark
+{
+   /**
+    * Creates the Field and remembers what every Cell holds.
+    */
+   @Setup
+   public void setUp()
+   {
+      p_theField = BenchmarkFields.createField(size, density,
+               "optimistic".equals(concurrency));
+      p_initial = new FieldOccupant[size * size];
+
+      for (int x = 0; x < size; x++)
+      {
+         for (int y = 0; y < size; y++)
+         {
+            p_initial[p_theField.indexOf(x, y)] = p_theField
+                     .getOccupantAt(x, y);
+         }
+      }
+
+      p_foxes = BenchmarkFields.findAll(p_theField, Field.FOX);
+      p_hounds = BenchmarkFields.findAll(p_theField, Field.HOUND);
+      p_random = new SplittableRandom(BenchmarkFields.SEED);
+   } // setUp
+
+
+   /**
+    * Lets the next Fox try to give birth.
+    *
+    * @throws InterruptedException
+    *            never, nobody interrupts the benchmark thread.
+    */
+   @Benchmark
+   public void foxBirth() throws InterruptedException
+   {
+      actNext(p_foxes, p_nextFox++);
+   } // foxBirth
+
+
+   /**
+    * Lets the next Hound try to eat a Fox and breed.
+    *
+    * @throws InterruptedException
+    *            never, nobody interrupts the benchmark thread.
+    */
+   @Benchmark
+   public void houndEat() throws InterruptedException
+   {
+      actNext(p_hounds, p_nextHound++);
+   } // houndEat
+
+
+   /**
+    * Lets one agent act, then puts back the Cells around it.
+    *
+    * @param agents
+    *           the packed coordinates of the agents taking turns.
+    * @param turn
+    *           how many turns these agents have had so far.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting to lock Cells.
+    */
+   private void actNext(int[] agents, int turn) throws InterruptedException
+   {
+      if (agents.length == 0)
+      {
+         return;
+      }
+
+      int packed = agents[Math.floorMod(turn, agents.length)];
+      int x = packed / size;
+      int y = packed % size;
+
+      p_initial[p_theField.indexOf(x, y)].step(p_random);
+
+      for (int dx = -1; dx <= 1; dx++)
+      {
+         for (int dy = -1; dy <= 1; dy++)
+         {
+            p_theField.storeAt(p_theField.indexOf(x + dx, y + dy),
+                     p_initial[p_theField.indexOf(x + dx, y + dy)]);
+         }
+      }
+   } // actNext
+
+   // The width and height of the Field
+   @Param({ "35", "256", "1024" })
+   public int              size;
+
+   // The share of Cells holding a FieldOccupant
+   @Param({ "0.05", "0.2", "0.5" })
+   public double           density;
+
+   // How Cells are kept consistent: locking or optimistic
+   @Param({ "locking", "optimistic" })
+   public String           concurrency;
+
+   private Field            p_theField;
+   private FieldOccupant[]  p_initial;
+   private int[]            p_foxes;
+   private int[]            p_hounds;
+   private int              p_nextFox;
+   private int              p_nextHound;
+   private SplittableRandom p_random;
+}
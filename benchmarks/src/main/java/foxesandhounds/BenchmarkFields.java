@@ -0,0 +1,115 @@
+package foxesandhounds;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Phaser;
+
+
+/**
+ * Builds the Fields our benchmarks run against. A Field is filled the same way
+ * Simulation fills one, three Foxes to every Hound, but from a fixed seed so
+ * every run of a benchmark starts from the same Field. FieldOccupants are never
+ * started; the benchmarks drive them directly.
+ */
+final class BenchmarkFields
+{
+   /**
+    * BenchmarkFields only holds static helpers.
+    */
+   private BenchmarkFields()
+   {
+   }
+
+
+   /**
+    * Creates a square Field and fills it with Foxes and Hounds.
+    *
+    * @param size
+    *           the width and height of the Field.
+    * @param density
+    *           the share of Cells that hold a FieldOccupant, from 0 to 1.
+    * @param optimistic
+    *           true if the Field should be changed with transactions instead
+    *           of locks.
+    * @return the new Field.
+    */
+   static Field createField(int size, double density, boolean optimistic)
+   {
+      Field theField = new Field(size, size);
+      Random r = new Random(SEED);
+
+      // Newborns must not get threads of their own, and nobody ever idles.
+      FieldOccupant.setLauncher(new AgentLauncher()
+      {
+         @Override
+         public void launch(FieldOccupant occupant)
+         {
+         }
+
+
+         @Override
+         public void wakeUp(FieldOccupant occupant)
+         {
+         }
+      });
+
+      // Hounds fed once should never starve while we measure them.
+      Hound.setStarveTime(Integer.MAX_VALUE);
+
+      theField.setOptimistic(optimistic);
+
+      for (int x = 0; x < size; x++)
+      {
+         for (int y = 0; y < size; y++)
+         {
+            if (r.nextDouble() < density)
+            {
+               theField.setCellAt(x, y, r.nextInt(4) == 0
+                        ? new Hound(x, y, theField, START)
+                        : new Fox(x, y, theField, START));
+            }
+         }
+      }
+
+      // Nothing has been drawn yet, but that's not what we're measuring.
+      theField.clearDirtyCells();
+
+      return theField;
+   } // createField
+
+
+   /**
+    * Returns the coordinates of every Cell holding the species given, packed
+    * as x * size + y, in a fixed order.
+    *
+    * @param theField
+    *           the Field to search.
+    * @param species
+    *           the species to find.
+    * @return the packed coordinates of the matching Cells.
+    */
+   static int[] findAll(Field theField, byte species)
+   {
+      int[] found = new int[theField.getWidth() * theField.getHeight()];
+      int count = 0;
+
+      for (int x = 0; x < theField.getWidth(); x++)
+      {
+         for (int y = 0; y < theField.getHeight(); y++)
+         {
+            if (theField.getSpeciesAt(x, y) == species)
+            {
+               found[count++] = x * theField.getHeight() + y;
+            }
+         }
+      }
+
+      return Arrays.copyOf(found, count);
+   } // findAll
+
+   // The seed every benchmark Field is filled from
+   static final long           SEED  = 460L;
+
+   // Shared by every benchmark FieldOccupant; never waited on
+   private static final Phaser START = new Phaser();
+}
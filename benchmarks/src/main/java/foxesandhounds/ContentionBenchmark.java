@@ -0,0 +1,107 @@
+package foxesandhounds;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures setCellAt with every available core writing the same Field at
+ * once. Each thread swaps the occupants of two random Cells, so threads
+ * collide on lock stripes or Cell versions the way agents do while the
+ * population, and so the density, stays as it was set up. Run with -t to try
+ * other numbers of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class ContentionBenchmark
+{
+   /**
+    * Each thread's own source of random Cells.
+    */
+   @State(Scope.Thread)
+   public static class Writer
+   {
+      /**
+       * Seeds this thread's random numbers.
+       */
+      @Setup
+      public void setUp()
+      {
+         p_random = s_seeds.split();
+      } // setUp
+
+      // Splits off a different, but repeatable, stream for every thread
+      private static final SplittableRandom s_seeds  = new SplittableRandom(
+               BenchmarkFields.SEED);
+
+      private SplittableRandom              p_random;
+   }
+
+
+   /**
+    * Creates the shared Field.
+    */
+   @Setup
+   public void setUp()
+   {
+      p_theField = BenchmarkFields.createField(size, density,
+               "optimistic".equals(concurrency));
+   } // setUp
+
+
+   /**
+    * Swaps whatever is in one random Cell with whatever is in another, in two
+    * calls to setCellAt.
+    *
+    * @param writer
+    *           this thread's source of random Cells.
+    * @return what was moved, so it isn't optimized away.
+    */
+   @Benchmark
+   public FieldOccupant setCellAt(Writer writer)
+   {
+      int fromX = writer.p_random.nextInt(size);
+      int fromY = writer.p_random.nextInt(size);
+      int toX = writer.p_random.nextInt(size);
+      int toY = writer.p_random.nextInt(size);
+      FieldOccupant moved = p_theField.getOccupantAt(fromX, fromY);
+      FieldOccupant displaced = p_theField.getOccupantAt(toX, toY);
+
+      // Put back what we displace, so occupants are never copied or lost.
+      p_theField.setCellAt(fromX, fromY, displaced);
+
+      return p_theField.setCellAt(toX, toY, moved);
+   } // setCellAt
+
+   // The width and height of the Field
+   @Param({ "35", "256", "1024" })
+   public int    size;
+
+   // The share of Cells holding a FieldOccupant
+   @Param({ "0.05", "0.2", "0.5" })
+   public double density;
+
+   // How Cells are kept consistent: locking or optimistic
+   @Param({ "locking", "optimistic" })
+   public String concurrency;
+
+   private Field p_theField;
+}
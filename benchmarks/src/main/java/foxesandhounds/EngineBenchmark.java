@@ -0,0 +1,100 @@
+package foxesandhounds;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures how long each GenerationEngine takes to advance a Field by one
+ * generation, using every available core. The Field is refilled before each
+ * iteration, but its population still changes from one generation to the
+ * next, so compare engines at the same size and density.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark
+{
+   /**
+    * Fills a new Field and creates the engine to advance it.
+    */
+   @Setup(Level.Iteration)
+   public void setUp()
+   {
+      int workers = Runtime.getRuntime().availableProcessors();
+
+      p_theField = BenchmarkFields.createField(size, density, false);
+
+      // Give Hounds a chance of starving so the population keeps moving.
+      Hound.setStarveTime(Hound.DEFAULT_STARVE_TICKS);
+
+      switch (engine)
+      {
+         case "step":
+            p_engine = new StepEngine(p_theField, workers,
+                     BenchmarkFields.SEED);
+            break;
+
+         case "tiles":
+            p_engine = new TileEngine(p_theField, workers,
+                     TileEngine.DEFAULT_TILE_SIZE, BenchmarkFields.SEED);
+            break;
+
+         case "store":
+            p_engine = new AgentStoreEngine(p_theField, workers,
+                     BenchmarkFields.SEED);
+            break;
+
+         default:
+            p_engine = new BitboardEngine(p_theField, workers);
+            break;
+      } // switch
+   } // setUp
+
+
+   /**
+    * Advances the Field by one generation.
+    *
+    * @return the number of generations completed, so nothing is optimized
+    *         away.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for the workers.
+    */
+   @Benchmark
+   public long step() throws InterruptedException
+   {
+      p_engine.step();
+
+      return p_engine.getGeneration();
+   } // step
+
+   // The width and height of the Field
+   @Param({ "256", "1024", "4096" })
+   public int               size;
+
+   // The share of Cells holding a FieldOccupant
+   @Param({ "0.2", "0.5" })
+   public double            density;
+
+   // Which engine to advance the Field with: step, tiles, store or bitboard
+   @Param({ "step", "tiles", "store", "bitboard" })
+   public String            engine;
+
+   private Field            p_theField;
+   private GenerationEngine p_engine;
+}
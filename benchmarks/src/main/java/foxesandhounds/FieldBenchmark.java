@@ -0,0 +1,111 @@
+package foxesandhounds;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures reading a Field from a single thread: looking up a Cell, listing
+ * the neighbors of a Cell and wrapping coordinates that fall off the Field.
+ * Each call walks to the next Cell so we never measure one Cell that sits in
+ * the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldBenchmark
+{
+   /**
+    * Creates the Field to read.
+    */
+   @Setup
+   public void setUp()
+   {
+      p_theField = BenchmarkFields.createField(size, density, false);
+   } // setUp
+
+
+   /**
+    * Looks up the Cell after the last one we looked up.
+    *
+    * @return the Cell, so it isn't optimized away.
+    */
+   @Benchmark
+   public Cell<FieldOccupant> getCellAt()
+   {
+      advance();
+      return p_theField.getCellAt(p_x, p_y);
+   } // getCellAt
+
+
+   /**
+    * Lists the neighbors of the Cell after the last one we looked at.
+    *
+    * @return the neighbors, so they aren't optimized away.
+    */
+   @Benchmark
+   public Object getNeighborsOf()
+   {
+      advance();
+      return p_theField.getNeighborsOf(p_x, p_y);
+   } // getNeighborsOf
+
+
+   /**
+    * Normalizes a coordinate that has wrapped off either side of the Field,
+    * alternating between too large and negative.
+    *
+    * @return the normalized coordinate.
+    */
+   @Benchmark
+   public int normalizeIndexWrap()
+   {
+      advance();
+
+      return p_theField.normalizeIndex((p_x & 1) == 0 ? p_x + size * 3
+               : p_x - size * 3, Field.WIDTH_INDEX);
+   } // normalizeIndexWrap
+
+
+   /**
+    * Moves on to the next Cell of the Field, row by row.
+    */
+   private void advance()
+   {
+      if (++p_x == size)
+      {
+         p_x = 0;
+
+         if (++p_y == size)
+         {
+            p_y = 0;
+         }
+      }
+   } // advance
+
+   // The width and height of the Field
+   @Param({ "35", "256", "1024" })
+   public int    size;
+
+   // The share of Cells holding a FieldOccupant
+   @Param({ "0.05", "0.2", "0.5" })
+   public double density;
+
+   private Field p_theField;
+   private int   p_x;
+   private int   p_y;
+}
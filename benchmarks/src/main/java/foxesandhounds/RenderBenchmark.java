@@ -0,0 +1,123 @@
+package foxesandhounds;
+
+import java.io.OutputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures drawing one frame of a Field: as full text frames, as ANSI text
+ * that only redraws what changed, and into the offscreen image used in
+ * graphics mode. Before each incremental frame a fixed number of random Cells
+ * are marked as changed. Text goes to a stream that throws it away and the
+ * image is never shown, so only the cost of building the frame is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark
+{
+   /**
+    * Creates the Field and renderers, and draws the first frame of each.
+    */
+   @Setup
+   public void setUp()
+   {
+      p_theField = BenchmarkFields.createField(size, density, false);
+      p_text = new TextFieldRenderer(p_theField,
+               OutputStream.nullOutputStream(), false);
+      p_ansi = new TextFieldRenderer(p_theField,
+               OutputStream.nullOutputStream(), true);
+      p_image = new ImageFieldRenderer(p_theField,
+               Math.max(1, Math.min(CELL_SIZE, MAX_WINDOW / size)));
+      p_random = new SplittableRandom(BenchmarkFields.SEED);
+
+      p_ansi.drawFrame();
+      p_image.drawFrame();
+   } // setUp
+
+
+   /**
+    * Draws a full text frame.
+    */
+   @Benchmark
+   public void textFull()
+   {
+      p_text.drawFrame();
+   } // textFull
+
+
+   /**
+    * Redraws the changed Cells as ANSI text.
+    */
+   @Benchmark
+   public void textChanges()
+   {
+      touchCells();
+      p_ansi.drawFrame();
+   } // textChanges
+
+
+   /**
+    * Redraws the changed Cells into the offscreen image.
+    */
+   @Benchmark
+   public void imageChanges()
+   {
+      touchCells();
+      p_image.drawFrame();
+   } // imageChanges
+
+
+   /**
+    * Marks random Cells as changed by storing what they already hold.
+    */
+   private void touchCells()
+   {
+      for (int i = 0; i < changedCells; i++)
+      {
+         int x = p_random.nextInt(size);
+         int y = p_random.nextInt(size);
+
+         p_theField.storeAt(p_theField.indexOf(x, y),
+                  p_theField.getOccupantAt(x, y));
+      }
+   } // touchCells
+
+   // Biggest Cell, and biggest window, as in Simulation
+   private static final int   CELL_SIZE  = 15;
+   private static final int   MAX_WINDOW = 1000;
+
+   // The width and height of the Field
+   @Param({ "35", "256", "1024" })
+   public int                 size;
+
+   // The share of Cells holding a FieldOccupant
+   @Param({ "0.05", "0.2", "0.5" })
+   public double              density;
+
+   // Cells that change between incremental frames
+   @Param({ "16", "1024" })
+   public int                 changedCells;
+
+   private Field              p_theField;
+   private TextFieldRenderer  p_text;
+   private TextFieldRenderer  p_ansi;
+   private ImageFieldRenderer p_image;
+   private SplittableRandom   p_random;
+}
@@ -0,0 +1,45 @@
+package foxesandhounds;
+
+import java.util.List;
+
+/**
+ * An AgentLauncher decides how the behaviour of a FieldOccupant is run once it
+ * has been placed on the Field.
+ */
+public interface AgentLauncher
+{
+   /**
+    * Starts running the behaviour of the FieldOccupant given.
+    * 
+    * @param occupant
+    *           the FieldOccupant to start.
+    */
+   void launch(FieldOccupant occupant);
+
+
+   /**
+    * Starts running the behaviour of every FieldOccupant given, e.g. once a
+    * Field has been populated. Launchers that can take them all at once may
+    * do so.
+    * 
+    * @param occupants
+    *           the FieldOccupants to start.
+    */
+   default void launchAll(List<? extends FieldOccupant> occupants)
+   {
+      for (FieldOccupant occupant : occupants)
+      {
+         launch(occupant);
+      }
+   } // launchAll
+
+
+   /**
+    * Wakes a FieldOccupant that is idle, waiting for a Cell next to it to
+    * change. Called from whichever thread changed the Cell.
+    * 
+    * @param occupant
+    *           the FieldOccupant to wake.
+    */
+   void wakeUp(FieldOccupant occupant);
+}
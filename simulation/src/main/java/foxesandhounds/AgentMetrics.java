@@ -0,0 +1,173 @@
+package foxesandhounds;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Measures the contested part of what FieldOccupants do, to show where time
+ * goes as a Field gets crowded: how long they wait to lock Cells, how long
+ * from waking up until an action is done, how many attempts an optimistic
+ * action takes, and how often an action is lost to somebody else getting
+ * there first. Recording never blocks or allocates, so it is always on; call
+ * toString to dump what has been recorded so far.
+ */
+public class AgentMetrics
+{
+   /**
+    * Creates empty AgentMetrics.
+    */
+   public AgentMetrics()
+   {
+      for (int i = 0; i < p_lostRaces.length; i++)
+      {
+         p_lostRaces[i] = new LongAdder();
+      }
+   } // AgentMetrics
+
+
+   /**
+    * Records how long a FieldOccupant waited to lock its Cells, whether it
+    * got them or not.
+    *
+    * @param nanos
+    *           the time spent waiting, in nanoseconds.
+    */
+   public void recordLockWait(long nanos)
+   {
+      p_lockWaits.record(nanos);
+   } // recordLockWait
+
+
+   /**
+    * Records how long a FieldOccupant took from waking up to finishing an
+    * action.
+    *
+    * @param nanos
+    *           the time taken, in nanoseconds.
+    */
+   public void recordAction(long nanos)
+   {
+      p_actions.record(nanos);
+   } // recordAction
+
+
+   /**
+    * Records how many attempts an optimistic action took, whether it
+    * committed in the end or not.
+    *
+    * @param attempts
+    *           the number of attempts.
+    */
+   public void recordAttempts(int attempts)
+   {
+      p_attempts.record(attempts);
+   } // recordAttempts
+
+
+   /**
+    * Records that an action was lost because the Field changed before the
+    * FieldOccupant owned its Cells.
+    *
+    * @param reason
+    *           why the action was lost, e.g. FOXHOLE_FILLED.
+    */
+   public void recordLostRace(int reason)
+   {
+      p_lostRaces[reason].increment();
+   } // recordLostRace
+
+
+   /**
+    * Returns the times spent waiting to lock Cells, in nanoseconds.
+    *
+    * @return the lock waits.
+    */
+   public Histogram getLockWaits()
+   {
+      return p_lockWaits;
+   } // getLockWaits
+
+
+   /**
+    * Returns the times from waking up to finishing an action, in nanoseconds.
+    *
+    * @return the action latencies.
+    */
+   public Histogram getActions()
+   {
+      return p_actions;
+   } // getActions
+
+
+   /**
+    * Returns the number of attempts optimistic actions took.
+    *
+    * @return the attempts per optimistic action.
+    */
+   public Histogram getAttempts()
+   {
+      return p_attempts;
+   } // getAttempts
+
+
+   /**
+    * Returns the number of actions lost for the reason given.
+    *
+    * @param reason
+    *           why the actions were lost, e.g. FOXHOLE_FILLED.
+    * @return the number of actions lost for that reason.
+    */
+   public long getLostRaces(int reason)
+   {
+      return p_lostRaces[reason].sum();
+   } // getLostRaces
+
+
+   /**
+    * Returns everything recorded so far, one measurement to a line.
+    *
+    * @return everything recorded so far.
+    */
+   @Override
+   public String toString()
+   {
+      StringBuilder dump = new StringBuilder();
+      double micros = TimeUnit.MICROSECONDS.toNanos(1);
+
+      dump.append("Lock wait:          ")
+               .append(p_lockWaits.toString(micros, "us"))
+               .append(System.lineSeparator());
+      dump.append("Action latency:     ")
+               .append(p_actions.toString(micros, "us"))
+               .append(System.lineSeparator());
+      dump.append("Attempts:           ").append(p_attempts)
+               .append(System.lineSeparator());
+      dump.append("Lost races:        ");
+
+      for (int i = 0; i < p_lostRaces.length; i++)
+      {
+         dump.append(' ').append(LOST_RACE_NAMES[i]).append('=')
+                  .append(getLostRaces(i));
+      }
+
+      return dump.toString();
+   } // toString
+
+   // Why an action was lost
+   public static final int         EATEN           = 0;
+   public static final int         MATE_GONE       = 1;
+   public static final int         FOXHOLE_FILLED  = 2;
+   public static final int         FOX_GONE        = 3;
+   public static final int         CELLS_BUSY      = 4;
+
+   // Names of the reasons above, as dumped
+   private static final String[]   LOST_RACE_NAMES = { "eaten", "mateGone",
+            "foxholeFilled", "foxGone", "cellsBusy" };
+
+   private final Histogram         p_lockWaits     = new Histogram();
+   private final Histogram         p_actions       = new Histogram();
+   private final Histogram         p_attempts      = new Histogram();
+   private final LongAdder[]       p_lostRaces     = new LongAdder[
+            LOST_RACE_NAMES.length];
+}
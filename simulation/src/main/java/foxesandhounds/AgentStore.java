@@ -0,0 +1,252 @@
+package foxesandhounds;
+
+import java.util.Arrays;
+
+
+/**
+ * Keeps Foxes and Hounds as rows of primitive arrays rather than one object
+ * each: a species, a position, a hunger and the state of a random number
+ * generator per agent. An agent is known by a stable integer id, its row in
+ * the arrays, and the id of an agent that leaves is handed to the next agent
+ * to arrive, so the arrays only grow to the most agents alive at once.
+ *
+ * Adding and removing agents is not thread safe. Reading and changing the
+ * hunger or randomness of different agents from different threads is.
+ */
+public class AgentStore
+{
+   /**
+    * Creates a new AgentStore.
+    *
+    * @param capacity
+    *           the number of agents to make room for up front.
+    */
+   public AgentStore(int capacity)
+   {
+      capacity = Math.max(capacity, MIN_CAPACITY);
+
+      p_species = new byte[capacity];
+      p_x = new int[capacity];
+      p_y = new int[capacity];
+      p_hunger = new int[capacity];
+      p_random = new long[capacity];
+      p_free = new int[capacity];
+   } // AgentStore
+
+
+   /**
+    * Adds an agent, reusing the id of one that left if there is one.
+    *
+    * @param species
+    *           Field.FOX or Field.HOUND.
+    * @param x
+    *           the x-coordinate of the agent.
+    * @param y
+    *           the y-coordinate of the agent.
+    * @param hunger
+    *           the fed status of the agent, if it is a Hound.
+    * @param seed
+    *           the seed of the agent's random numbers.
+    * @return the id of the new agent.
+    */
+   public int add(byte species, int x, int y, int hunger, long seed)
+   {
+      int id;
+
+      if (p_freeCount > 0)
+      {
+         id = p_free[--p_freeCount];
+      }
+      else
+      {
+         if (p_end == p_species.length)
+         {
+            grow();
+         }
+
+         id = p_end++;
+      }
+
+      p_species[id] = species;
+      p_x[id] = x;
+      p_y[id] = y;
+      p_hunger[id] = hunger;
+      p_random[id] = seed;
+      p_size++;
+
+      return id;
+   } // add
+
+
+   /**
+    * Removes an agent. Its id may be given to the next agent added.
+    *
+    * @param id
+    *           the id of the agent to remove.
+    */
+   public void remove(int id)
+   {
+      p_species[id] = Field.EMPTY;
+      p_free[p_freeCount++] = id;
+      p_size--;
+   } // remove
+
+
+   /**
+    * Returns the number of agents in this AgentStore.
+    *
+    * @return the number of agents.
+    */
+   public int size()
+   {
+      return p_size;
+   } // size
+
+
+   /**
+    * Returns one past the highest id in use. Every agent has an id below
+    * this, but some ids below it may be free.
+    *
+    * @return one past the highest id in use.
+    */
+   public int getEnd()
+   {
+      return p_end;
+   } // getEnd
+
+
+   /**
+    * Returns the species of an agent.
+    *
+    * @param id
+    *           the id of the agent.
+    * @return Field.FOX, Field.HOUND, or Field.EMPTY if the id is free.
+    */
+   public byte getSpecies(int id)
+   {
+      return p_species[id];
+   } // getSpecies
+
+
+   /**
+    * Returns the x-coordinate of an agent.
+    *
+    * @param id
+    *           the id of the agent.
+    * @return the x-coordinate of the agent.
+    */
+   public int getX(int id)
+   {
+      return p_x[id];
+   } // getX
+
+
+   /**
+    * Returns the y-coordinate of an agent.
+    *
+    * @param id
+    *           the id of the agent.
+    * @return the y-coordinate of the agent.
+    */
+   public int getY(int id)
+   {
+      return p_y[id];
+   } // getY
+
+
+   /**
+    * Returns the fed status of an agent. Only a Hound's means anything.
+    *
+    * @param id
+    *           the id of the agent.
+    * @return the fed status of the agent.
+    */
+   public int getHunger(int id)
+   {
+      return p_hunger[id];
+   } // getHunger
+
+
+   /**
+    * Sets the fed status of an agent.
+    *
+    * @param id
+    *           the id of the agent.
+    * @param hunger
+    *           the new fed status of the agent.
+    */
+   public void setHunger(int id, int hunger)
+   {
+      p_hunger[id] = hunger;
+   } // setHunger
+
+
+   /**
+    * Returns the next random long of an agent, the same way SplittableRandom
+    * does, so an agent's random numbers depend only on its seed.
+    *
+    * @param id
+    *           the id of the agent.
+    * @return a random long.
+    */
+   public long nextLong(int id)
+   {
+      long z = p_random[id] += GOLDEN_GAMMA;
+
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   } // nextLong
+
+
+   /**
+    * Returns a random int of an agent from 0 up to, but not including, bound.
+    *
+    * @param id
+    *           the id of the agent.
+    * @param bound
+    *           one past the largest int to return; must be positive.
+    * @return a random int below bound.
+    */
+   public int nextInt(int id, int bound)
+   {
+      // The high 32 bits scaled to the bound; the bias is far too small to
+      // matter for bounds as small as ours.
+      return (int) (((nextLong(id) >>> Integer.SIZE) * bound) >>> Integer.SIZE);
+   } // nextInt
+
+
+   /**
+    * Doubles the room for agents.
+    */
+   private void grow()
+   {
+      int capacity = p_species.length * 2;
+
+      p_species = Arrays.copyOf(p_species, capacity);
+      p_x = Arrays.copyOf(p_x, capacity);
+      p_y = Arrays.copyOf(p_y, capacity);
+      p_hunger = Arrays.copyOf(p_hunger, capacity);
+      p_random = Arrays.copyOf(p_random, capacity);
+      p_free = Arrays.copyOf(p_free, capacity);
+   } // grow
+
+   // The fewest agents we make room for
+   private static final int  MIN_CAPACITY = 16;
+
+   // The increment SplittableRandom uses by default
+   private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+   private byte[]            p_species;
+   private int[]             p_x;
+   private int[]             p_y;
+   private int[]             p_hunger;
+   private long[]            p_random;
+
+   // Ids that were used and are free again
+   private int[]             p_free;
+   private int               p_freeCount;
+
+   private int               p_end;
+   private int               p_size;
+}
@@ -0,0 +1,697 @@
+package foxesandhounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Advances the Foxes and Hounds of a Field in discrete generations as rows of
+ * an AgentStore rather than FieldOccupants, so an agent costs a few dozen
+ * bytes and a birth costs no allocation at all. A grid of agent ids, one int
+ * per Cell, stands in for the Field, along with the species in each Cell so
+ * looking around never has to visit the AgentStore.
+ *
+ * Each generation follows the rules of Fox and Hound the way a TileEngine
+ * does. First, in parallel over chunks of ids, every agent looks at the grid,
+ * which nobody changes meanwhile, and claims the one Cell it needs with a
+ * random priority. Then, again in parallel, every agent finds out whether it
+ * won its Cell and Hounds get hungrier. Finally one thread adds the newborns
+ * and removes the eaten and starved, in chunk order. Every agent draws from
+ * its own random numbers, so the result depends only on the seed.
+ *
+ * The Field is read into the AgentStore when the first generation starts and
+ * emptied, so its FieldOccupants can be collected rather than kept for the
+ * whole run; only its FieldStatistics follow the engine after that. That
+ * makes this engine for headless runs.
+ */
+public class AgentStoreEngine implements GenerationEngine
+{
+   /**
+    * Creates a new AgentStoreEngine.
+    *
+    * @param theField
+    *           the Field to read the first generation from.
+    * @param workers
+    *           the parallelism of the ForkJoinPool stepping agents.
+    * @param seed
+    *           the seed every agent's randomness is derived from.
+    */
+   public AgentStoreEngine(Field theField, int workers, long seed)
+   {
+      int cells = theField.getWidth() * theField.getHeight();
+
+      p_theField = theField;
+      p_width = theField.getWidth();
+      p_height = theField.getHeight();
+      p_seed = seed;
+      p_pool = new ForkJoinPool(workers);
+      p_store = new AgentStore(cells / 4);
+      p_grid = new int[cells];
+      p_species = new byte[cells];
+      p_claims = new AtomicLongArray(cells);
+      p_target = new int[cells / 4];
+      p_claim = new long[cells / 4];
+      p_hasMate = new boolean[cells / 4];
+   } // AgentStoreEngine
+
+
+   /**
+    * FieldOccupants don't run on their own under an AgentStoreEngine; the
+    * Field is read when the first generation starts instead.
+    *
+    * @param occupant
+    *           the FieldOccupant that was placed on the Field.
+    */
+   @Override
+   public void launch(FieldOccupant occupant)
+   {
+      // Nothing to do, the first generation will pick it up.
+   } // launch
+
+
+   /**
+    * Advances the Field one generation at a time until interrupted.
+    */
+   @Override
+   public void run()
+   {
+      try
+      {
+         while (!Thread.currentThread().isInterrupted())
+         {
+            step();
+         }
+      }
+      finally
+      {
+         p_pool.shutdownNow();
+      }
+   } // run
+
+
+   /**
+    * Advances the Field by one generation.
+    */
+   @Override
+   public void step()
+   {
+      int end;
+
+      if (p_generation == 0)
+      {
+         load();
+      }
+
+      p_starveTime = (int) Math.min(Hound.getStarveTime(), Integer.MAX_VALUE);
+      end = p_store.getEnd();
+
+      // Make room for every agent's proposal and a Chunk for every CHUNK_SIZE
+      // of them.
+      if (p_target.length < end)
+      {
+         p_target = Arrays.copyOf(p_target, end * 2);
+         p_claim = Arrays.copyOf(p_claim, end * 2);
+         p_hasMate = Arrays.copyOf(p_hasMate, end * 2);
+      }
+
+      while (p_chunks.size() * CHUNK_SIZE < end)
+      {
+         p_chunks.add(new Chunk());
+      }
+
+      p_pool.invoke(new Agents(PROPOSE, 0, end));
+      p_pool.invoke(new Agents(SETTLE, 0, end));
+      apply(end);
+
+      p_generation++;
+   } // step
+
+
+   /**
+    * Returns the number of generations this AgentStoreEngine has completed.
+    *
+    * @return the number of generations completed.
+    */
+   @Override
+   public long getGeneration()
+   {
+      return p_generation;
+   } // getGeneration
+
+
+   /**
+    * Returns the AgentStore holding every agent.
+    *
+    * @return the AgentStore of this engine.
+    */
+   public AgentStore getStore()
+   {
+      return p_store;
+   } // getStore
+
+
+   /**
+    * Returns the species in a Cell as of the last generation.
+    *
+    * @param x
+    *           is the x-coordinate of the Cell.
+    * @param y
+    *           is the y-coordinate of the Cell.
+    * @return Field.EMPTY, Field.FOX or Field.HOUND.
+    */
+   public byte getSpeciesAt(int x, int y)
+   {
+      return p_species[y * p_width + x];
+   } // getSpeciesAt
+
+
+   /**
+    * Reads the Foxes and Hounds on the Field into the AgentStore, taking
+    * each off the Field once it is copied.
+    */
+   private void load()
+   {
+      byte species;
+      int index;
+
+      for (int y = 0; y < p_height; y++)
+      {
+         for (int x = 0; x < p_width; x++)
+         {
+            species = p_theField.getSpeciesAt(x, y);
+            index = y * p_width + x;
+
+            if (species != Field.EMPTY)
+            {
+               p_species[index] = species;
+               p_grid[index] = 1 + p_store.add(species, x, y,
+                        p_theField.getHungerAt(x, y),
+                        p_seed ^ index * SEED_MIX);
+               p_theField.forgetAt(p_theField.indexOf(x, y));
+            }
+         }
+      }
+   } // load
+
+
+   /**
+    * Carries out the winning claims of every Chunk in order, then removes the
+    * agents that were eaten or starved. Nobody is removed until every newborn
+    * is in place, so no id is reused while it is still being looked at.
+    *
+    * @param end
+    *           one past the highest id stepped this generation.
+    */
+   private void apply(int end)
+   {
+      long foxesBorn = 0;
+      long houndsBorn = 0;
+      long houndsStarved = 0;
+      int target;
+      int id;
+
+      p_eaten.clear();
+
+      for (int c = 0; c * CHUNK_SIZE < end; c++)
+      {
+         Chunk chunk = p_chunks.get(c);
+
+         for (int i = 0; i < chunk.p_winners.size(); i++)
+         {
+            id = chunk.p_winners.get(i);
+            target = p_target[id];
+
+            if (p_store.getSpecies(id) == Field.FOX)
+            {
+               p_grid[target] = 1 + born(Field.FOX, target, id);
+               p_species[target] = Field.FOX;
+               foxesBorn++;
+            }
+            else
+            {
+               p_eaten.add(p_grid[target] - 1);
+               p_grid[target] = 0;
+               p_species[target] = Field.EMPTY;
+
+               if (p_hasMate[id])
+               {
+                  p_grid[target] = 1 + born(Field.HOUND, target, id);
+                  p_species[target] = Field.HOUND;
+                  houndsBorn++;
+               }
+            }
+         }
+      }
+
+      for (int i = 0; i < p_eaten.size(); i++)
+      {
+         p_store.remove(p_eaten.get(i));
+      }
+
+      for (int c = 0; c * CHUNK_SIZE < end; c++)
+      {
+         Chunk chunk = p_chunks.get(c);
+
+         for (int i = 0; i < chunk.p_starved.size(); i++)
+         {
+            id = chunk.p_starved.get(i);
+            target = p_store.getY(id) * p_width + p_store.getX(id);
+            p_grid[target] = 0;
+            p_species[target] = Field.EMPTY;
+            p_store.remove(id);
+            houndsStarved++;
+         }
+      }
+
+      p_theField.getStatistics().recordBatch(foxesBorn, houndsBorn,
+               p_eaten.size(), houndsStarved);
+   } // apply
+
+
+   /**
+    * Adds a newborn to the AgentStore, seeded from its parent.
+    *
+    * @param species
+    *           the species of the newborn.
+    * @param cell
+    *           the index of the Cell it is born in.
+    * @param parent
+    *           the id of its parent.
+    * @return the id of the newborn.
+    */
+   private int born(byte species, int cell, int parent)
+   {
+      return p_store.add(species, cell % p_width, cell / p_width,
+               p_starveTime, p_store.nextLong(parent));
+   } // born
+
+
+   /**
+    * A growable list of ints.
+    */
+   private static class IntList
+   {
+      /**
+       * Adds an int to the end of the list.
+       *
+       * @param value
+       *           the int to add.
+       */
+      void add(int value)
+      {
+         if (p_size == p_values.length)
+         {
+            p_values = Arrays.copyOf(p_values, p_size * 2);
+         }
+
+         p_values[p_size++] = value;
+      }
+
+
+      /**
+       * Returns an int of the list.
+       *
+       * @param i
+       *           the position of the int.
+       * @return the int at that position.
+       */
+      int get(int i)
+      {
+         return p_values[i];
+      }
+
+
+      /**
+       * Returns the number of ints in the list.
+       *
+       * @return the size of the list.
+       */
+      int size()
+      {
+         return p_size;
+      }
+
+
+      /**
+       * Empties the list.
+       */
+      void clear()
+      {
+         p_size = 0;
+      }
+
+      private int[] p_values = new int[16];
+      private int   p_size;
+   }
+
+
+   /**
+    * What one chunk of CHUNK_SIZE ids found out this generation.
+    */
+   private static class Chunk
+   {
+      // Ids of the agents that won their claim
+      private final IntList p_winners   = new IntList();
+
+      // Ids of the Hounds that starved
+      private final IntList p_starved   = new IntList();
+
+      // The neighbors of a Cell being looked at
+      private final int[]   p_neighbors = new int[8];
+   }
+
+
+   /**
+    * Runs one parallel phase of a generation over a range of ids, splitting
+    * it on Chunk boundaries until each task has a single Chunk.
+    */
+   private class Agents extends RecursiveAction
+   {
+      /**
+       * Creates a new Agents.
+       *
+       * @param phase
+       *           PROPOSE or SETTLE.
+       * @param first
+       *           the first id to process.
+       * @param end
+       *           one past the last id to process.
+       */
+      Agents(int phase, int first, int end)
+      {
+         p_phase = phase;
+         p_first = first;
+         p_end = end;
+      }
+
+
+      /**
+       * Processes our ids, or splits them between two new tasks.
+       */
+      @Override
+      protected void compute()
+      {
+         int middle;
+
+         if (p_end - p_first > CHUNK_SIZE)
+         {
+            middle = (p_first + p_end) / 2 / CHUNK_SIZE * CHUNK_SIZE;
+            middle = Math.max(middle, p_first + CHUNK_SIZE);
+            invokeAll(new Agents(p_phase, p_first, middle),
+                     new Agents(p_phase, middle, p_end));
+         }
+         else if (p_phase == PROPOSE)
+         {
+            propose(p_chunks.get(p_first / CHUNK_SIZE));
+         }
+         else
+         {
+            settle(p_chunks.get(p_first / CHUNK_SIZE));
+         }
+      } // compute
+
+
+      /**
+       * Lets every agent of our Chunk claim the Cell it wants.
+       *
+       * @param chunk
+       *           our Chunk.
+       */
+      private void propose(Chunk chunk)
+      {
+         byte species;
+         int target;
+
+         for (int id = p_first; id < p_end; id++)
+         {
+            species = p_store.getSpecies(id);
+            target = NO_TARGET;
+
+            if (species == Field.FOX)
+            {
+               target = proposeFox(chunk, id);
+            }
+            else if (species == Field.HOUND)
+            {
+               target = proposeHound(chunk, id);
+            }
+
+            p_target[id] = target;
+
+            // Priorities start at 1 so an unclaimed Cell is always 0, and
+            // ties go to the highest id.
+            if (target != NO_TARGET)
+            {
+               p_claim[id] = (long) (1 + p_store.nextInt(id, MAX_PRIORITY))
+                        << Integer.SIZE | id;
+               claim(target, p_claim[id]);
+            }
+         }
+      } // propose
+
+
+      /**
+       * Picks an empty Cell next to a Fox at random and, if another Fox is
+       * next to that Cell, returns it as the foxhole.
+       *
+       * @param chunk
+       *           our Chunk.
+       * @param id
+       *           the id of the Fox.
+       * @return the index of the foxhole, or NO_TARGET.
+       */
+      private int proposeFox(Chunk chunk, int id)
+      {
+         int[] neighbors = chunk.p_neighbors;
+         int self = p_store.getY(id) * p_width + p_store.getX(id);
+         int emptyCells = 0;
+         int foxhole = NO_TARGET;
+
+         findNeighbors(self, neighbors);
+
+         for (int cell : neighbors)
+         {
+            if (p_species[cell] == Field.EMPTY
+                     && p_store.nextInt(id, ++emptyCells) == 0)
+            {
+               foxhole = cell;
+            }
+         }
+
+         if (foxhole == NO_TARGET)
+         {
+            return NO_TARGET;
+         }
+
+         findNeighbors(foxhole, neighbors);
+
+         for (int cell : neighbors)
+         {
+            if (cell != self && p_species[cell] == Field.FOX)
+            {
+               return foxhole;
+            }
+         }
+
+         return NO_TARGET;
+      } // proposeFox
+
+
+      /**
+       * Picks a Fox next to a Hound at random to eat, and notes whether
+       * another Hound is next to it to mate with.
+       *
+       * @param chunk
+       *           our Chunk.
+       * @param id
+       *           the id of the Hound.
+       * @return the index of the Fox's Cell, or NO_TARGET.
+       */
+      private int proposeHound(Chunk chunk, int id)
+      {
+         int[] neighbors = chunk.p_neighbors;
+         int self = p_store.getY(id) * p_width + p_store.getX(id);
+         int foxes = 0;
+         int fox = NO_TARGET;
+
+         findNeighbors(self, neighbors);
+
+         for (int cell : neighbors)
+         {
+            if (p_species[cell] == Field.FOX
+                     && p_store.nextInt(id, ++foxes) == 0)
+            {
+               fox = cell;
+            }
+         }
+
+         if (fox == NO_TARGET)
+         {
+            return NO_TARGET;
+         }
+
+         p_hasMate[id] = false;
+         findNeighbors(fox, neighbors);
+
+         for (int cell : neighbors)
+         {
+            if (cell != self && p_species[cell] == Field.HOUND)
+            {
+               p_hasMate[id] = true;
+               break;
+            }
+         }
+
+         return fox;
+      } // proposeHound
+
+
+      /**
+       * Finds out which agents of our Chunk won their claim, and makes its
+       * Hounds a generation hungrier, feeding those that won.
+       *
+       * @param chunk
+       *           our Chunk.
+       */
+      private void settle(Chunk chunk)
+      {
+         byte species;
+         boolean won;
+         int hunger;
+
+         chunk.p_winners.clear();
+         chunk.p_starved.clear();
+
+         for (int id = p_first; id < p_end; id++)
+         {
+            species = p_store.getSpecies(id);
+
+            if (species == Field.EMPTY)
+            {
+               continue;
+            }
+
+            // Every claimed Cell has exactly one winner, who clears it for
+            // the next generation. A loser reading it cleared still loses.
+            won = p_target[id] != NO_TARGET
+                     && p_claims.get(p_target[id]) == p_claim[id];
+
+            if (won)
+            {
+               p_claims.set(p_target[id], 0);
+               chunk.p_winners.add(id);
+            }
+
+            if (species == Field.HOUND)
+            {
+               hunger = (won ? p_starveTime : p_store.getHunger(id)) - 1;
+               p_store.setHunger(id, hunger);
+
+               if (hunger <= 0)
+               {
+                  chunk.p_starved.add(id);
+               }
+            }
+         }
+      } // settle
+
+      private static final long serialVersionUID = 1L;
+
+      private final int         p_phase;
+      private final int         p_first;
+      private final int         p_end;
+   }
+
+
+   /**
+    * Claims a Cell for an agent, unless somebody already claimed it with a
+    * higher priority.
+    *
+    * @param target
+    *           the index of the Cell to claim.
+    * @param claim
+    *           the priority in the high half and the agent in the low half.
+    */
+   private void claim(int target, long claim)
+   {
+      long current = p_claims.get(target);
+
+      while (current < claim && !p_claims.compareAndSet(target, current, claim))
+      {
+         current = p_claims.get(target);
+      }
+   } // claim
+
+
+   /**
+    * Finds the indexes of the 8 Cells around a Cell, wrapping around the
+    * edges of the Field.
+    *
+    * @param cell
+    *           the index of the Cell.
+    * @param neighbors
+    *           where to put the indexes of its neighbors.
+    */
+   private void findNeighbors(int cell, int[] neighbors)
+   {
+      int x = cell % p_width;
+      int y = cell / p_width;
+      int west = x == 0 ? p_width - 1 : x - 1;
+      int east = x == p_width - 1 ? 0 : x + 1;
+      int above = (y == 0 ? p_height - 1 : y - 1) * p_width;
+      int row = y * p_width;
+      int below = (y == p_height - 1 ? 0 : y + 1) * p_width;
+
+      neighbors[0] = above + west;
+      neighbors[1] = above + x;
+      neighbors[2] = above + east;
+      neighbors[3] = row + west;
+      neighbors[4] = row + east;
+      neighbors[5] = below + west;
+      neighbors[6] = below + x;
+      neighbors[7] = below + east;
+   } // findNeighbors
+
+   // Ids stepped by one task
+   private static final int       CHUNK_SIZE   = 4096;
+
+   // The phases of a generation that run in parallel
+   private static final int       PROPOSE      = 0;
+   private static final int       SETTLE       = 1;
+
+   // What an agent that claims nothing targets
+   private static final int       NO_TARGET    = -1;
+
+   // Claims get a priority below this
+   private static final int       MAX_PRIORITY = Integer.MAX_VALUE;
+
+   // Odd constant used to spread Cells across seeds
+   private static final long      SEED_MIX     = 0x9E3779B97F4A7C15L;
+
+   private final Field            p_theField;
+   private final int              p_width;
+   private final int              p_height;
+   private final long             p_seed;
+   private final ForkJoinPool     p_pool;
+   private final AgentStore       p_store;
+
+   // The id of the agent in each Cell, plus 1, or 0 if it is empty, and
+   // its species
+   private final int[]            p_grid;
+   private final byte[]           p_species;
+   private final AtomicLongArray  p_claims;
+
+   // What each agent proposed this generation, by id
+   private int[]                  p_target;
+   private long[]                 p_claim;
+   private boolean[]              p_hasMate;
+
+   private final List<Chunk>      p_chunks     = new ArrayList<>();
+   private final IntList          p_eaten      = new IntList();
+   private int                    p_starveTime;
+   private volatile long          p_generation;
+}
@@ -0,0 +1,483 @@
+package foxesandhounds;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Advances the Foxes and Hounds of a Field in discrete generations as
+ * bit-planes rather than FieldOccupants. Each row of the Field is a run of
+ * longs with one bit per Cell, one plane for Foxes and one for Hounds, so the
+ * neighbors of 64 Cells are counted at once with shifts, ANDs and ORs. Hound
+ * hunger stays in a side array, one int per Cell.
+ *
+ * Every Cell changes at once from the planes of the previous generation:
+ *
+ * - An empty Cell with at least two Foxes next to it, a parent and a mate,
+ * gets a new Fox.
+ *
+ * - A Fox with a Hound next to it is eaten. If at least two Hounds are next
+ * to it, a parent and a mate, a new Hound is born in its place.
+ *
+ * - A Hound with a Fox next to it is fed, and every Hound gets a generation
+ * hungrier and starves once it runs out.
+ *
+ * These are the rules of Fox and Hound with every choice taken at once, rather
+ * than each FieldOccupant picking one foxhole or one Fox at random, so a
+ * population grows and shrinks faster than under the other engines.
+ *
+ * The Field is read into the planes when the first generation starts and is
+ * not changed after that; only its FieldStatistics follow the engine. That
+ * makes this engine for headless runs.
+ */
+public class BitboardEngine implements GenerationEngine
+{
+   /**
+    * Creates a new BitboardEngine.
+    *
+    * @param theField
+    *           the Field to read the first generation from.
+    * @param workers
+    *           the parallelism of the ForkJoinPool stepping rows.
+    */
+   public BitboardEngine(Field theField, int workers)
+   {
+      int width = theField.getWidth();
+      int height = theField.getHeight();
+
+      p_theField = theField;
+      p_width = width;
+      p_height = height;
+      p_words = (width + Long.SIZE - 1) / Long.SIZE;
+      p_lastBit = (width - 1) % Long.SIZE;
+      p_lastMask = -1L >>> (Long.SIZE - 1 - p_lastBit);
+      p_pool = new ForkJoinPool(workers);
+      p_foxes = new long[height * p_words];
+      p_hounds = new long[height * p_words];
+      p_nextFoxes = new long[height * p_words];
+      p_nextHounds = new long[height * p_words];
+      p_hunger = new int[width * height];
+   } // BitboardEngine
+
+
+   /**
+    * FieldOccupants don't run on their own under a BitboardEngine; the Field
+    * is read when the first generation starts instead.
+    *
+    * @param occupant
+    *           the FieldOccupant that was placed on the Field.
+    */
+   @Override
+   public void launch(FieldOccupant occupant)
+   {
+      // Nothing to do, the first generation will pick it up.
+   } // launch
+
+
+   /**
+    * Advances the Field one generation at a time until interrupted.
+    */
+   @Override
+   public void run()
+   {
+      try
+      {
+         while (!Thread.currentThread().isInterrupted())
+         {
+            step();
+         }
+      }
+      finally
+      {
+         p_pool.shutdownNow();
+      }
+   } // run
+
+
+   /**
+    * Advances the Field by one generation.
+    */
+   @Override
+   public void step()
+   {
+      long[] swap;
+
+      if (p_generation == 0)
+      {
+         load();
+      }
+
+      p_starveTime = (int) Math.min(Hound.getStarveTime(), Integer.MAX_VALUE);
+      p_pool.invoke(new Rows(0, p_height));
+
+      swap = p_foxes;
+      p_foxes = p_nextFoxes;
+      p_nextFoxes = swap;
+      swap = p_hounds;
+      p_hounds = p_nextHounds;
+      p_nextHounds = swap;
+
+      p_generation++;
+   } // step
+
+
+   /**
+    * Returns the number of generations this BitboardEngine has completed.
+    *
+    * @return the number of generations completed.
+    */
+   @Override
+   public long getGeneration()
+   {
+      return p_generation;
+   } // getGeneration
+
+
+   /**
+    * Returns the species in a Cell as of the last generation.
+    *
+    * @param x
+    *           is the x-coordinate of the Cell.
+    * @param y
+    *           is the y-coordinate of the Cell.
+    * @return Field.EMPTY, Field.FOX or Field.HOUND.
+    */
+   public byte getSpeciesAt(int x, int y)
+   {
+      int word = y * p_words + x / Long.SIZE;
+      long bit = 1L << x;
+
+      if ((p_foxes[word] & bit) != 0)
+      {
+         return Field.FOX;
+      }
+
+      return (p_hounds[word] & bit) != 0 ? Field.HOUND : Field.EMPTY;
+   } // getSpeciesAt
+
+
+   /**
+    * Returns the hunger in a Cell as of the last generation. Only a Cell
+    * holding a Hound has a meaningful hunger.
+    *
+    * @param x
+    *           is the x-coordinate of the Cell.
+    * @param y
+    *           is the y-coordinate of the Cell.
+    * @return the fed status of the Hound in the Cell.
+    */
+   public int getHungerAt(int x, int y)
+   {
+      return p_hunger[y * p_width + x];
+   } // getHungerAt
+
+
+   /**
+    * Reads the Foxes and Hounds on the Field into the planes.
+    */
+   private void load()
+   {
+      byte species;
+
+      for (int y = 0; y < p_height; y++)
+      {
+         for (int x = 0; x < p_width; x++)
+         {
+            species = p_theField.getSpeciesAt(x, y);
+
+            if (species == Field.FOX)
+            {
+               p_foxes[y * p_words + x / Long.SIZE] |= 1L << x;
+            }
+            else if (species == Field.HOUND)
+            {
+               p_hounds[y * p_words + x / Long.SIZE] |= 1L << x;
+               p_hunger[y * p_width + x] = p_theField.getHungerAt(x, y);
+            }
+         }
+      }
+   } // load
+
+
+   /**
+    * Returns a word of a row shifted so each bit holds the Cell to its west,
+    * wrapping around the edge of the Field.
+    *
+    * @param plane
+    *           the plane to read.
+    * @param row
+    *           the index of the first word of the row.
+    * @param word
+    *           which word of the row to return.
+    * @return the word with each bit holding its western neighbor.
+    */
+   private long west(long[] plane, int row, int word)
+   {
+      long shifted = plane[row + word] << 1;
+
+      if (word > 0)
+      {
+         shifted |= plane[row + word - 1] >>> (Long.SIZE - 1);
+      }
+      else
+      {
+         shifted |= (plane[row + p_words - 1] >>> p_lastBit) & 1;
+      }
+
+      // Don't let the last Cell spill past the edge of the Field.
+      return word == p_words - 1 ? shifted & p_lastMask : shifted;
+   } // west
+
+
+   /**
+    * Returns a word of a row shifted so each bit holds the Cell to its east,
+    * wrapping around the edge of the Field.
+    *
+    * @param plane
+    *           the plane to read.
+    * @param row
+    *           the index of the first word of the row.
+    * @param word
+    *           which word of the row to return.
+    * @return the word with each bit holding its eastern neighbor.
+    */
+   private long east(long[] plane, int row, int word)
+   {
+      long shifted = plane[row + word] >>> 1;
+
+      if (word < p_words - 1)
+      {
+         shifted |= plane[row + word + 1] << (Long.SIZE - 1);
+      }
+      else
+      {
+         shifted |= (plane[row] & 1) << p_lastBit;
+      }
+
+      return shifted;
+   } // east
+
+
+   /**
+    * Steps a range of rows, splitting it in half until each task has at most
+    * ROWS_PER_TASK rows. Each task only writes its own rows.
+    */
+   private class Rows extends RecursiveAction
+   {
+      /**
+       * Creates a new Rows.
+       *
+       * @param firstRow
+       *           the first row (y-coordinate) to step.
+       * @param endRow
+       *           one past the last row (y-coordinate) to step.
+       */
+      Rows(int firstRow, int endRow)
+      {
+         p_firstRow = firstRow;
+         p_endRow = endRow;
+      }
+
+
+      /**
+       * Steps our rows, or splits them between two new tasks.
+       */
+      @Override
+      protected void compute()
+      {
+         int middle;
+
+         if (p_endRow - p_firstRow > ROWS_PER_TASK)
+         {
+            middle = (p_firstRow + p_endRow) >>> 1;
+            invokeAll(new Rows(p_firstRow, middle),
+                     new Rows(middle, p_endRow));
+            return;
+         }
+
+         for (int y = p_firstRow; y < p_endRow; y++)
+         {
+            stepRow(y);
+         }
+
+         p_theField.getStatistics().recordBatch(p_foxesBorn, p_houndsBorn,
+                  p_foxesEaten, p_houndsStarved);
+      } // compute
+
+
+      /**
+       * Works out the next generation of one row.
+       *
+       * @param y
+       *           the row to step.
+       */
+      private void stepRow(int y)
+      {
+         int row = y * p_words;
+         int above = (y + p_height - 1) % p_height * p_words;
+         int below = (y + 1) % p_height * p_words;
+         long mask;
+         long foxes, hounds, empty;
+         long foxOne, foxTwo, houndOne, houndTwo;
+         long foxBorn, eaten, houndBorn, fed, starved;
+
+         for (int word = 0; word < p_words; word++)
+         {
+            mask = word == p_words - 1 ? p_lastMask : -1L;
+            foxes = p_foxes[row + word];
+            hounds = p_hounds[row + word];
+            empty = ~(foxes | hounds) & mask;
+
+            countNeighbors(p_foxes, above, row, below, word);
+            foxOne = p_one;
+            foxTwo = p_two;
+            countNeighbors(p_hounds, above, row, below, word);
+            houndOne = p_one;
+            houndTwo = p_two;
+
+            foxBorn = empty & foxTwo;
+            eaten = foxes & houndOne;
+            houndBorn = eaten & houndTwo;
+            fed = hounds & foxOne;
+            starved = age(y, word, hounds, fed, houndBorn);
+
+            p_nextFoxes[row + word] = foxes & ~eaten | foxBorn;
+            p_nextHounds[row + word] = hounds & ~starved | houndBorn;
+
+            p_foxesBorn += Long.bitCount(foxBorn);
+            p_houndsBorn += Long.bitCount(houndBorn);
+            p_foxesEaten += Long.bitCount(eaten);
+            p_houndsStarved += Long.bitCount(starved);
+         }
+      } // stepRow
+
+
+      /**
+       * Counts the neighbors in a plane of each Cell in a word, up to two,
+       * leaving in p_one the Cells with at least one and in p_two those with
+       * at least two.
+       *
+       * @param plane
+       *           the plane to count.
+       * @param above
+       *           the index of the first word of the row above.
+       * @param row
+       *           the index of the first word of the row.
+       * @param below
+       *           the index of the first word of the row below.
+       * @param word
+       *           which word of the rows to count.
+       */
+      private void countNeighbors(long[] plane, int above, int row, int below,
+               int word)
+      {
+         p_one = 0;
+         p_two = 0;
+         add(west(plane, above, word));
+         add(plane[above + word]);
+         add(east(plane, above, word));
+         add(west(plane, row, word));
+         add(east(plane, row, word));
+         add(west(plane, below, word));
+         add(plane[below + word]);
+         add(east(plane, below, word));
+      } // countNeighbors
+
+
+      /**
+       * Adds one neighbor to the counts of each Cell in a word, saturating at
+       * two.
+       *
+       * @param neighbors
+       *           the Cells that have this neighbor.
+       */
+      private void add(long neighbors)
+      {
+         p_two |= p_one & neighbors;
+         p_one |= neighbors;
+      } // add
+
+
+      /**
+       * Makes the Hounds of a word a generation hungrier, or feeds them, and
+       * starts newborns well fed.
+       *
+       * @param y
+       *           the row of the word.
+       * @param word
+       *           which word of the row.
+       * @param hounds
+       *           the Hounds in the word.
+       * @param fed
+       *           the Hounds that ate.
+       * @param newborns
+       *           the Hounds born.
+       * @return the Hounds that starved.
+       */
+      private long age(int y, int word, long hounds, long fed, long newborns)
+      {
+         int first = y * p_width + word * Long.SIZE;
+         long starved = 0;
+         long bit;
+         int index;
+
+         // A Hound eats, then gets a generation hungrier.
+         for (long left = hounds; left != 0; left &= left - 1)
+         {
+            bit = Long.lowestOneBit(left);
+            index = first + Long.numberOfTrailingZeros(left);
+
+            if ((fed & bit) != 0)
+            {
+               p_hunger[index] = p_starveTime;
+            }
+
+            if (--p_hunger[index] <= 0)
+            {
+               starved |= bit;
+            }
+         }
+
+         for (long left = newborns; left != 0; left &= left - 1)
+         {
+            p_hunger[first + Long.numberOfTrailingZeros(left)] = p_starveTime;
+         }
+
+         return starved;
+      } // age
+
+      private static final long serialVersionUID = 1L;
+
+      private final int         p_firstRow;
+      private final int         p_endRow;
+
+      // Neighbor counts of the word being stepped
+      private long              p_one;
+      private long              p_two;
+
+      // What happened in our rows
+      private long              p_foxesBorn;
+      private long              p_houndsBorn;
+      private long              p_foxesEaten;
+      private long              p_houndsStarved;
+   }
+
+   // Rows small enough to spread a Field across workers, large enough that
+   // a task does more than its own bookkeeping
+   private static final int   ROWS_PER_TASK = 16;
+
+   private final Field        p_theField;
+   private final int          p_width;
+   private final int          p_height;
+   private final int          p_words;
+   private final int          p_lastBit;
+   private final long         p_lastMask;
+   private final ForkJoinPool p_pool;
+   private final int[]        p_hunger;
+   private long[]             p_foxes;
+   private long[]             p_hounds;
+   private long[]             p_nextFoxes;
+   private long[]             p_nextHounds;
+   private int                p_starveTime;
+   private volatile long      p_generation;
+}
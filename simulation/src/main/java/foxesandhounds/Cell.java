@@ -1,5 +1,10 @@
+package foxesandhounds;
+
+
 /**
- * Generic helper class to control synchronized operations on a Field.
+ * Generic helper class to control synchronized operations on a Field. A Cell
+ * either holds its own occupant or is a view onto a location of a Field, in
+ * which case reading and setting the occupant go straight to the Field.
  */
 public class Cell<T> implements Comparable<Cell<T>>
 {
@@ -19,6 +24,24 @@ public class Cell<T> implements Comparable<Cell<T>>
    }
 
 
+   /**
+    * Creates a new Cell that views a location of a Field.
+    * 
+    * @param field
+    *           the Field holding the state of this Cell.
+    * @param row
+    *           the row of the Cell on the Field.
+    * @param col
+    *           the col of the Cell on the Field.
+    */
+   Cell(Field field, int row, int col)
+   {
+      p_field = field;
+      setRow(row);
+      setCol(col);
+   }
+
+
    /**
     * Sets the col of the Cell.
     * 
@@ -70,9 +93,11 @@ public class Cell<T> implements Comparable<Cell<T>>
     * 
     * @return the FieldOccupant of this Cell.
     */
+   @SuppressWarnings("unchecked")
    public T getOccupant()
    {
-      return p_occupant;
+      return p_field == null ? p_occupant
+               : (T) p_field.getOccupantAt(p_row, p_col);
    }
 
 
@@ -84,8 +109,14 @@ public class Cell<T> implements Comparable<Cell<T>>
     */
    public void setOccupant(T occupant)
    {
-      p_occupant = occupant;
-      Simulation.DISPLAY_FIELD.getAndSet(true);
+      if (p_field == null)
+      {
+         p_occupant = occupant;
+      }
+      else
+      {
+         p_field.setCellAt(p_row, p_col, (FieldOccupant) occupant);
+      }
    }
 
 
@@ -103,6 +134,7 @@ public class Cell<T> implements Comparable<Cell<T>>
 
    /**
     * Returns a comparison of this Cell to the Cell passed as a parameter.
+    * Cells are ordered the way a Field stores them, by col and then by row.
     * 
     * @param o
     *           the Cell to compare this Cell to.
@@ -112,12 +144,15 @@ public class Cell<T> implements Comparable<Cell<T>>
    @Override
    public int compareTo(Cell<T> o)
    {
-      return getRow() - o.getRow() == 0 ? getCol() - o.getCol()
-               : getRow() - o.getRow();
+      return getCol() - o.getCol() == 0 ? getRow() - o.getRow()
+               : getCol() - o.getCol();
    }
 
    // A Cell is located at coordinates and can hold an occupant.
    private int p_row;
    private int p_col;
    private T   p_occupant;
+
+   // The Field this Cell is a view onto, or null if it holds its own occupant
+   private Field p_field;
 } // Cell
\ No newline at end of file
@@ -0,0 +1,398 @@
+package foxesandhounds;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Locks up to three Cells of a Field at once. Cells are guarded by a fixed set
+ * of striped ReentrantLocks keyed by Cell index, and the stripes a caller needs
+ * are always taken in increasing stripe order.
+ *
+ * Why this can never deadlock: a thread only ever waits for a stripe that is
+ * greater than every stripe it already holds (a stripe it already holds is
+ * skipped, and re-entering one it holds through Field.setCellAt never waits).
+ * For threads to deadlock there would have to be a cycle of threads each
+ * waiting for a stripe held by the next, and going around that cycle the
+ * stripe numbers would strictly increase and come back to where they started,
+ * which is impossible. On top of that every wait is timed; when a lock can't
+ * be had in time everything is released and we back off and try again, so a
+ * caller can only ever be delayed, never stuck.
+ */
+public class CellLockManager
+{
+   /**
+    * Creates a CellLockManager for a Field with the given number of Cells.
+    *
+    * @param cells
+    *           the number of Cells on the Field.
+    */
+   public CellLockManager(int cells)
+   {
+      int stripes = 1;
+
+      // Use a power of two so a stripe is a mask away, but never more stripes
+      // than there are Cells.
+      while (stripes < cells && stripes < MAX_STRIPES)
+      {
+         stripes <<= 1;
+      }
+
+      p_locks = new ReentrantLock[stripes];
+
+      for (int i = 0; i < stripes; i++)
+      {
+         p_locks[i] = new ReentrantLock();
+      }
+   } // CellLockManager
+
+
+   /**
+    * Locks the Cell at the given index, waiting as long as it takes. Used when
+    * a single Cell is written.
+    *
+    * @param index
+    *           the index of the Cell to lock.
+    */
+   public void lock(int index)
+   {
+      p_locks[stripeOf(index)].lock();
+   } // lock
+
+
+   /**
+    * Unlocks the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell to unlock.
+    */
+   public void unlock(int index)
+   {
+      p_locks[stripeOf(index)].unlock();
+   } // unlock
+
+
+   /**
+    * Locks the Cells at two indexes.
+    *
+    * @param first
+    *           the index of a Cell to lock.
+    * @param second
+    *           the index of another Cell to lock.
+    * @return true if both Cells are locked, false if we gave up.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for a lock.
+    */
+   public boolean acquire(int first, int second) throws InterruptedException
+   {
+      return acquire(first, second, second);
+   } // acquire
+
+
+   /**
+    * Locks the Cells at three indexes.
+    *
+    * @param first
+    *           the index of a Cell to lock.
+    * @param second
+    *           the index of another Cell to lock.
+    * @param third
+    *           the index of another Cell to lock.
+    * @return true if all three Cells are locked, false if we gave up.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for a lock.
+    */
+   public boolean acquire(int first, int second, int third)
+            throws InterruptedException
+   {
+      int low = stripeOf(first);
+      int middle = stripeOf(second);
+      int high = stripeOf(third);
+      int swap;
+
+      // Put our stripes in canonical (increasing) order.
+      if (low > middle)
+      {
+         swap = low;
+         low = middle;
+         middle = swap;
+      }
+      if (middle > high)
+      {
+         swap = middle;
+         middle = high;
+         high = swap;
+      }
+      if (low > middle)
+      {
+         swap = low;
+         low = middle;
+         middle = swap;
+      }
+
+      // Only take each stripe once.
+      return acquireOrdered(low, middle == low ? NO_STRIPE : middle,
+               high == middle ? NO_STRIPE : high);
+   } // acquire
+
+
+   /**
+    * Unlocks the Cells at two indexes locked by acquire.
+    *
+    * @param first
+    *           the index of a locked Cell.
+    * @param second
+    *           the index of another locked Cell.
+    */
+   public void release(int first, int second)
+   {
+      release(first, second, second);
+   } // release
+
+
+   /**
+    * Unlocks the Cells at three indexes locked by acquire.
+    *
+    * @param first
+    *           the index of a locked Cell.
+    * @param second
+    *           the index of another locked Cell.
+    * @param third
+    *           the index of another locked Cell.
+    */
+   public void release(int first, int second, int third)
+   {
+      int firstStripe = stripeOf(first);
+      int secondStripe = stripeOf(second);
+      int thirdStripe = stripeOf(third);
+
+      p_locks[firstStripe].unlock();
+
+      if (secondStripe != firstStripe)
+      {
+         p_locks[secondStripe].unlock();
+      }
+      if (thirdStripe != firstStripe && thirdStripe != secondStripe)
+      {
+         p_locks[thirdStripe].unlock();
+      }
+   } // release
+
+
+   /**
+    * Returns the number of stripes Cells are spread across.
+    *
+    * @return the number of stripes.
+    */
+   public int getStripes()
+   {
+      return p_locks.length;
+   } // getStripes
+
+
+   /**
+    * Returns the number of stripes that have been locked through acquire.
+    *
+    * @return the number of stripes locked.
+    */
+   public long getAcquisitions()
+   {
+      return p_acquisitions.sum();
+   } // getAcquisitions
+
+
+   /**
+    * Returns the number of times a stripe was already held by somebody else
+    * when we went to lock it.
+    *
+    * @return the number of contended lock attempts.
+    */
+   public long getContentions()
+   {
+      return p_contentions.sum();
+   } // getContentions
+
+
+   /**
+    * Returns the number of times we had to let go of everything and back off.
+    *
+    * @return the number of retries.
+    */
+   public long getRetries()
+   {
+      return p_retries.sum();
+   } // getRetries
+
+
+   /**
+    * Returns the number of times we gave up on locking a set of Cells.
+    *
+    * @return the number of failed acquires.
+    */
+   public long getFailures()
+   {
+      return p_failures.sum();
+   } // getFailures
+
+
+   /**
+    * Returns a summary of the contention counters.
+    *
+    * @return a summary of the contention counters.
+    */
+   @Override
+   public String toString()
+   {
+      return "stripes=" + getStripes() + " acquisitions=" + getAcquisitions()
+               + " contentions=" + getContentions() + " retries="
+               + getRetries() + " failures=" + getFailures();
+   } // toString
+
+
+   /**
+    * Locks up to three stripes that are already in increasing order.
+    *
+    * @param low
+    *           the lowest stripe to lock.
+    * @param middle
+    *           the next stripe to lock, or NO_STRIPE.
+    * @param high
+    *           the highest stripe to lock, or NO_STRIPE.
+    * @return true if every stripe is locked, false if we gave up.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for a lock.
+    */
+   private boolean acquireOrdered(int low, int middle, int high)
+            throws InterruptedException
+   {
+      long backoff = MIN_BACKOFF_NANOS;
+
+      for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+      {
+         if (tryLock(low))
+         {
+            if (tryLock(middle))
+            {
+               if (tryLock(high))
+               {
+                  return true;
+               }
+
+               unlockStripe(middle);
+            }
+
+            unlockStripe(low);
+         }
+
+         // Let whoever has our Cells finish before we try again, unless
+         // that was our last try.
+         if (attempt + 1 < MAX_ATTEMPTS)
+         {
+            p_retries.increment();
+            LockSupport.parkNanos(
+                     ThreadLocalRandom.current().nextLong(backoff) + 1);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+
+            if (Thread.interrupted())
+            {
+               throw new InterruptedException();
+            }
+         }
+      }
+
+      p_failures.increment();
+      return false;
+   } // acquireOrdered
+
+
+   /**
+    * Tries to lock a stripe, waiting at most LOCK_TIMEOUT_NANOS.
+    *
+    * @param stripe
+    *           the stripe to lock, or NO_STRIPE.
+    * @return true if the stripe is locked (or there was nothing to lock).
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for the lock.
+    */
+   private boolean tryLock(int stripe) throws InterruptedException
+   {
+      if (stripe == NO_STRIPE)
+      {
+         return true;
+      }
+
+      // Only count the stripes we actually get.
+      if (p_locks[stripe].tryLock())
+      {
+         p_acquisitions.increment();
+         return true;
+      }
+
+      p_contentions.increment();
+
+      if (p_locks[stripe].tryLock(LOCK_TIMEOUT_NANOS, TimeUnit.NANOSECONDS))
+      {
+         p_acquisitions.increment();
+         return true;
+      }
+
+      return false;
+   } // tryLock
+
+
+   /**
+    * Unlocks a stripe.
+    *
+    * @param stripe
+    *           the stripe to unlock, or NO_STRIPE.
+    */
+   private void unlockStripe(int stripe)
+   {
+      if (stripe != NO_STRIPE)
+      {
+         p_locks[stripe].unlock();
+      }
+   } // unlockStripe
+
+
+   /**
+    * Returns the stripe guarding the Cell at the given index. Cells next to
+    * each other in a row land on different stripes, but Cells in a column
+    * share a stripe when the width of the Field is a multiple of the number
+    * of stripes. That is safe, since a stripe already held is skipped, but
+    * those Cells can't be locked by different threads at once.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the stripe guarding the Cell.
+    */
+   private int stripeOf(int index)
+   {
+      return index & (p_locks.length - 1);
+   } // stripeOf
+
+   // Most stripes we will spread Cells across
+   private static final int     MAX_STRIPES        = 1 << 14;
+
+   // Marks a stripe we don't need to take
+   private static final int     NO_STRIPE          = -1;
+
+   // How long to wait for one stripe before letting go of everything
+   private static final long    LOCK_TIMEOUT_NANOS = 1_000_000;
+
+   // Bounds on how long to back off between attempts
+   private static final long    MIN_BACKOFF_NANOS  = 10_000;
+   private static final long    MAX_BACKOFF_NANOS  = 1_000_000;
+
+   // How many times to try before giving up on an action
+   private static final int     MAX_ATTEMPTS       = 8;
+
+   private final ReentrantLock[] p_locks;
+   private final LongAdder      p_acquisitions     = new LongAdder();
+   private final LongAdder      p_contentions      = new LongAdder();
+   private final LongAdder      p_retries          = new LongAdder();
+   private final LongAdder      p_failures         = new LongAdder();
+}
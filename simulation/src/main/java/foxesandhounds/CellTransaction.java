@@ -0,0 +1,151 @@
+package foxesandhounds;
+
+
+/**
+ * An optimistic change to up to three Cells of a Field. A transaction notes the
+ * version of each Cell it depends on, lets the caller check the Cells hold
+ * what it needs without any locks, and then commits by claiming every Cell
+ * with a CAS. If any Cell moved on since it was read the claims are undone and
+ * the caller can retry or give up.
+ *
+ * Usage:
+ *
+ * <pre>
+ * transaction.begin();
+ * if (transaction.read(a) &amp;&amp; transaction.read(b)
+ *          &amp;&amp; stillValid() &amp;&amp; transaction.commit())
+ * {
+ *    transaction.write(b, newOccupant);
+ *    transaction.end();
+ * }
+ * </pre>
+ *
+ * A CellTransaction is reused between actions but only by one thread at a time.
+ */
+public class CellTransaction
+{
+   /**
+    * Creates a new CellTransaction on a Field using optimistic concurrency.
+    *
+    * @param theField
+    *           the Field whose Cells we change.
+    */
+   public CellTransaction(Field theField)
+   {
+      p_theField = theField;
+      p_versions = theField.getVersions();
+   }
+
+
+   /**
+    * Starts a new transaction, forgetting any Cells read before.
+    */
+   public void begin()
+   {
+      p_size = 0;
+   } // begin
+
+
+   /**
+    * Notes the current version of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return true if the Cell was read, false if somebody is writing it right
+    *         now and the transaction should be retried.
+    */
+   public boolean read(int index)
+   {
+      long version = p_versions.read(index);
+
+      if (version == CellVersions.WRITING)
+      {
+         p_versions.aborted();
+         return false;
+      }
+
+      // Keep our Cells sorted by index so every transaction claims Cells in
+      // the same order.
+      int i = p_size++;
+
+      while (i > 0 && p_indexes[i - 1] > index)
+      {
+         p_indexes[i] = p_indexes[i - 1];
+         p_read[i] = p_read[i - 1];
+         i--;
+      }
+
+      p_indexes[i] = index;
+      p_read[i] = version;
+
+      return true;
+   } // read
+
+
+   /**
+    * Claims every Cell read, as long as none of them has changed.
+    *
+    * @return true if every Cell is ours to write, false if one had changed and
+    *         nothing was claimed.
+    */
+   public boolean commit()
+   {
+      for (int i = 0; i < p_size; i++)
+      {
+         if (!p_versions.claim(p_indexes[i], p_read[i]))
+         {
+            // Somebody beat us to it, undo what we claimed so far.
+            while (--i >= 0)
+            {
+               p_versions.unclaim(p_indexes[i], p_read[i]);
+            }
+
+            p_versions.aborted();
+            return false;
+         }
+      }
+
+      p_versions.committed();
+      return true;
+   } // commit
+
+
+   /**
+    * Sets the FieldOccupant of a Cell claimed by commit.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param occupant
+    *           the new FieldOccupant, or null to empty the Cell.
+    */
+   public void write(int index, FieldOccupant occupant)
+   {
+      p_theField.storeAt(index, occupant);
+   } // write
+
+
+   /**
+    * Publishes every write and releases the Cells claimed by commit.
+    */
+   public void end()
+   {
+      for (int i = 0; i < p_size; i++)
+      {
+         p_versions.publish(p_indexes[i], p_read[i]);
+      }
+
+      p_size = 0;
+   } // end
+
+   // How many times an action should try before giving up
+   public static final int     MAX_ATTEMPTS = 4;
+
+   // Most Cells an action depends on
+   private static final int    MAX_CELLS    = 3;
+
+   private final Field         p_theField;
+   private final CellVersions  p_versions;
+   private final int[]         p_indexes    = new int[MAX_CELLS];
+   private final long[]        p_read       = new long[MAX_CELLS];
+   private int                 p_size;
+}
@@ -0,0 +1,167 @@
+package foxesandhounds;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Keeps a version number for every Cell of a Field so Cells can be changed
+ * optimistically instead of under locks. An even version means nobody is
+ * writing the Cell; a writer claims a Cell by moving its version from even to
+ * odd with a CAS, and publishes its change by moving it on to the next even
+ * version. A reader that saw the same even version before and after it looked
+ * at a Cell knows nobody changed it in between.
+ */
+public class CellVersions
+{
+   /**
+    * Creates versions for a Field with the given number of Cells.
+    *
+    * @param cells
+    *           the number of Cells on the Field.
+    */
+   public CellVersions(int cells)
+   {
+      p_versions = new AtomicLongArray(cells);
+   } // CellVersions
+
+
+   /**
+    * Returns the current version of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the version of the Cell, or WRITING if somebody is writing it.
+    */
+   public long read(int index)
+   {
+      long version = p_versions.get(index);
+
+      return (version & 1) == 0 ? version : WRITING;
+   } // read
+
+
+   /**
+    * Claims the Cell at the given index for writing if it is still at the
+    * version given.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param version
+    *           the version we expect the Cell to be at.
+    * @return true if we claimed the Cell.
+    */
+   public boolean claim(int index, long version)
+   {
+      return p_versions.compareAndSet(index, version, version + 1);
+   } // claim
+
+
+   /**
+    * Gives up a claim on the Cell at the given index without changing it.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param version
+    *           the version the Cell was claimed at.
+    */
+   public void unclaim(int index, long version)
+   {
+      p_versions.set(index, version);
+   } // unclaim
+
+
+   /**
+    * Publishes a change to the Cell at the given index, ending our claim.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param version
+    *           the version the Cell was claimed at.
+    */
+   public void publish(int index, long version)
+   {
+      p_versions.set(index, version + 2);
+   } // publish
+
+
+   /**
+    * Claims the Cell at the given index whatever its version, spinning until
+    * any other writer is done with it. Used for single Cell writes that don't
+    * depend on what the Cell held.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the version the Cell was claimed at.
+    */
+   public long claim(int index)
+   {
+      long version;
+
+      while ((version = read(index)) == WRITING || !claim(index, version))
+      {
+         Thread.onSpinWait();
+      }
+
+      return version;
+   } // claim
+
+
+   /**
+    * Records that a transaction committed.
+    */
+   public void committed()
+   {
+      p_commits.increment();
+   } // committed
+
+
+   /**
+    * Records that a transaction found one of its Cells changed and aborted.
+    */
+   public void aborted()
+   {
+      p_aborts.increment();
+   } // aborted
+
+
+   /**
+    * Returns the number of transactions that committed.
+    *
+    * @return the number of commits.
+    */
+   public long getCommits()
+   {
+      return p_commits.sum();
+   } // getCommits
+
+
+   /**
+    * Returns the number of transactions that aborted.
+    *
+    * @return the number of aborts.
+    */
+   public long getAborts()
+   {
+      return p_aborts.sum();
+   } // getAborts
+
+
+   /**
+    * Returns a summary of the transaction counters.
+    *
+    * @return a summary of the transaction counters.
+    */
+   @Override
+   public String toString()
+   {
+      return "commits=" + getCommits() + " aborts=" + getAborts();
+   } // toString
+
+   // Returned by read for a Cell somebody is writing
+   public static final long       WRITING   = -1;
+
+   private final AtomicLongArray p_versions;
+   private final LongAdder       p_commits = new LongAdder();
+   private final LongAdder       p_aborts  = new LongAdder();
+}
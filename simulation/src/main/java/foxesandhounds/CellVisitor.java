@@ -0,0 +1,18 @@
+package foxesandhounds;
+
+
+/**
+ * Something that wants to be told about Cells of a Field, one at a time.
+ */
+public interface CellVisitor
+{
+   /**
+    * Visits the Cell at the coordinates provided.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell.
+    * @param y
+    *           is the y-coordinate of the Cell.
+    */
+   void visit(int x, int y);
+}
@@ -0,0 +1,436 @@
+package foxesandhounds;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+
+/**
+ * Keeps the state of a Field in chunks of CHUNK_SIZE x CHUNK_SIZE Cells that
+ * are only allocated once somebody moves into them and are dropped again once
+ * the last occupant leaves, so a huge, mostly empty Field costs memory in
+ * proportion to its population rather than its area. All that is kept for an
+ * empty chunk is a null in a directory with one slot per chunk.
+ *
+ * Cells keep their row-major indexes, so wraparound and everything else that
+ * indexes Cells works as it does on a FlatFieldStorage. Finding the chunk of
+ * a Cell, on either side of a chunk boundary, is one division and one array
+ * read.
+ *
+ * Each chunk counts its occupants, and the occupants it counts next to its
+ * Cells, since an empty Cell still has to remember its neighbors. Moving into
+ * an empty Cell, or next to one, raises the count of its chunk, creating the
+ * chunk if there is none; moving out lowers it, and whoever lowers it to 0
+ * retires the chunk and removes it from the directory. A retired chunk can't
+ * be counted up again, so somebody moving in at the same time puts a new
+ * chunk in its place instead. Every change is a compare-and-set or an atomic
+ * add, so no lock is needed beyond the caller owning the Cell it writes.
+ */
+public class ChunkedFieldStorage implements FieldStorage
+{
+   /**
+    * Creates empty storage for a Field of the given width and height.
+    *
+    * @param width
+    *           of the field.
+    * @param height
+    *           of the field.
+    */
+   public ChunkedFieldStorage(int width, int height)
+   {
+      FieldStorage.countCells(width, height);
+
+      p_width = width;
+      p_height = height;
+      p_chunksAcross = (width + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+      p_chunks = new Chunk[p_chunksAcross
+               * ((height + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+   } // ChunkedFieldStorage
+
+
+   /**
+    * Returns the width of the stored field.
+    *
+    * @return the width of the stored field.
+    */
+   @Override
+   public int getWidth()
+   {
+      return p_width;
+   } // getWidth
+
+
+   /**
+    * Returns the height of the stored field.
+    *
+    * @return the height of the stored field.
+    */
+   @Override
+   public int getHeight()
+   {
+      return p_height;
+   } // getHeight
+
+
+   /**
+    * Returns the FieldOccupant of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the FieldOccupant of the Cell, or null if it is empty.
+    */
+   @Override
+   public FieldOccupant getOccupant(int index)
+   {
+      int y = index / p_width;
+      int x = index - y * p_width;
+      Chunk chunk = getChunk(x, y);
+
+      return chunk == null ? null
+               : (FieldOccupant) OCCUPANTS.getAcquire(chunk.p_occupants,
+                        slotOf(x, y));
+   } // getOccupant
+
+
+   /**
+    * Returns the species of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return Field.EMPTY, Field.FOX or Field.HOUND.
+    */
+   @Override
+   public byte getSpecies(int index)
+   {
+      int y = index / p_width;
+      int x = index - y * p_width;
+      Chunk chunk = getChunk(x, y);
+
+      return chunk == null ? Field.EMPTY
+               : (byte) SPECIES.getAcquire(chunk.p_species, slotOf(x, y));
+   } // getSpecies
+
+
+   /**
+    * Returns the hunger (fed status) of the Cell at the given index. Only
+    * Cells holding a Hound have a hunger other than 0.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the hunger of the Cell.
+    */
+   @Override
+   public int getHunger(int index)
+   {
+      int y = index / p_width;
+      int x = index - y * p_width;
+      Chunk chunk = getChunk(x, y);
+
+      return chunk == null ? 0
+               : (int) HUNGER.getAcquire(chunk.p_hunger, slotOf(x, y));
+   } // getHunger
+
+
+   /**
+    * Sets the FieldOccupant of the Cell at the given index, along with its
+    * species and hunger, allocating or dropping its chunk as needed.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param occupant
+    *           the new FieldOccupant, or null to empty the Cell.
+    */
+   @Override
+   public void setOccupant(int index, FieldOccupant occupant)
+   {
+      int y = index / p_width;
+      int x = index - y * p_width;
+      int directory = directoryOf(x, y);
+      int slot = slotOf(x, y);
+      Chunk chunk = (Chunk) CHUNKS.getAcquire(p_chunks, directory);
+      boolean occupied = chunk != null
+               && OCCUPANTS.getAcquire(chunk.p_occupants, slot) != null;
+
+      // Nothing moves out of a Cell that is already empty.
+      if (occupant == null && !occupied)
+      {
+         return;
+      }
+
+      // Our own occupant keeps the chunk alive while we replace it.
+      if (!occupied)
+      {
+         chunk = enter(directory);
+      }
+
+      HUNGER.setRelease(chunk.p_hunger, slot, occupant instanceof Hound
+               ? ((Hound) occupant).getFedStatus()
+               : 0);
+      SPECIES.setRelease(chunk.p_species, slot,
+               occupant == null ? Field.EMPTY : occupant.getSpecies());
+      OCCUPANTS.setRelease(chunk.p_occupants, slot, occupant);
+
+      if (occupant == null && (int) COUNT.getAndAdd(chunk, -1) == 1)
+      {
+         retire(directory, chunk);
+      }
+   } // setOccupant
+
+
+   /**
+    * Sets the hunger of the Cell at the given index, unless it is in a chunk
+    * nobody occupies.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param hunger
+    *           the hunger of the Cell.
+    */
+   @Override
+   public void setHunger(int index, int hunger)
+   {
+      int y = index / p_width;
+      int x = index - y * p_width;
+      Chunk chunk = getChunk(x, y);
+
+      if (chunk != null)
+      {
+         HUNGER.setRelease(chunk.p_hunger, slotOf(x, y), hunger);
+      }
+   } // setHunger
+
+
+   /**
+    * Returns how many Foxes and Hounds are in the 8 Cells around the Cell at
+    * the given index, packed as in FOX_NEIGHBOR and HOUND_NEIGHBOR.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the packed neighbor counts of the Cell.
+    */
+   @Override
+   public int getNeighbors(int index)
+   {
+      int y = index / p_width;
+      int x = index - y * p_width;
+      Chunk chunk = getChunk(x, y);
+
+      return chunk == null ? 0
+               : (byte) NEIGHBORS.getAcquire(chunk.p_neighbors, slotOf(x, y))
+                        & 0xFF;
+   } // getNeighbors
+
+
+   /**
+    * Counts one more or one less Fox or Hound next to the Cell at the given
+    * index, allocating or dropping its chunk as needed.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param delta
+    *           plus or minus FOX_NEIGHBOR or HOUND_NEIGHBOR.
+    */
+   @Override
+   public void addNeighbors(int index, int delta)
+   {
+      int y = index / p_width;
+      int x = index - y * p_width;
+      int directory = directoryOf(x, y);
+      Chunk chunk;
+
+      // Whatever we count keeps the chunk alive until we count it out again,
+      // so there's a chunk to count it out of.
+      if (delta > 0)
+      {
+         chunk = enter(directory);
+         NEIGHBORS.getAndAdd(chunk.p_neighbors, slotOf(x, y), (byte) delta);
+      }
+      else
+      {
+         chunk = (Chunk) CHUNKS.getAcquire(p_chunks, directory);
+         NEIGHBORS.getAndAdd(chunk.p_neighbors, slotOf(x, y), (byte) delta);
+
+         if ((int) COUNT.getAndAdd(chunk, -1) == 1)
+         {
+            retire(directory, chunk);
+         }
+      }
+   } // addNeighbors
+
+
+   /**
+    * Returns the number of chunks currently allocated.
+    *
+    * @return the number of chunks in use.
+    */
+   public int getChunkCount()
+   {
+      int count = 0;
+
+      for (int i = 0; i < p_chunks.length; i++)
+      {
+         if (CHUNKS.getAcquire(p_chunks, i) != null)
+         {
+            count++;
+         }
+      }
+
+      return count;
+   } // getChunkCount
+
+
+   /**
+    * Returns the chunk holding the Cell at the given coordinates.
+    *
+    * @param x
+    *           the x-coordinate of the Cell.
+    * @param y
+    *           the y-coordinate of the Cell.
+    * @return the chunk of the Cell, or null if it has none.
+    */
+   private Chunk getChunk(int x, int y)
+   {
+      return (Chunk) CHUNKS.getAcquire(p_chunks, directoryOf(x, y));
+   } // getChunk
+
+
+   /**
+    * Returns the slot in the directory of the chunk holding a Cell.
+    *
+    * @param x
+    *           the x-coordinate of the Cell.
+    * @param y
+    *           the y-coordinate of the Cell.
+    * @return the directory slot of the Cell's chunk.
+    */
+   private int directoryOf(int x, int y)
+   {
+      return (y >>> CHUNK_SHIFT) * p_chunksAcross + (x >>> CHUNK_SHIFT);
+   } // directoryOf
+
+
+   /**
+    * Returns the slot of a Cell within its chunk.
+    *
+    * @param x
+    *           the x-coordinate of the Cell.
+    * @param y
+    *           the y-coordinate of the Cell.
+    * @return the slot of the Cell in its chunk.
+    */
+   private static int slotOf(int x, int y)
+   {
+      return (y & CHUNK_MASK) << CHUNK_SHIFT | x & CHUNK_MASK;
+   } // slotOf
+
+
+   /**
+    * Counts one more occupant, or one more neighbor, into the chunk in a
+    * directory slot, creating a chunk if there is none or if the one there
+    * has been retired.
+    *
+    * @param directory
+    *           the directory slot of the chunk.
+    * @return the chunk, with the newcomer counted.
+    */
+   private Chunk enter(int directory)
+   {
+      Chunk chunk;
+      int count;
+
+      while (true)
+      {
+         chunk = (Chunk) CHUNKS.getAcquire(p_chunks, directory);
+         count = chunk == null ? RETIRED : (int) COUNT.getAcquire(chunk);
+
+         if (count == RETIRED)
+         {
+            Chunk fresh = new Chunk();
+
+            if (CHUNKS.compareAndSet(p_chunks, directory, chunk, fresh))
+            {
+               return fresh;
+            }
+         }
+         else if (COUNT.compareAndSet(chunk, count, count + 1))
+         {
+            return chunk;
+         }
+      }
+   } // enter
+
+
+   /**
+    * Retires a chunk whose last occupant or neighbor just left and drops it
+    * from the directory, unless somebody has moved in since.
+    *
+    * @param directory
+    *           the directory slot of the chunk.
+    * @param chunk
+    *           the chunk to retire.
+    */
+   private void retire(int directory, Chunk chunk)
+   {
+      if (COUNT.compareAndSet(chunk, 0, RETIRED))
+      {
+         CHUNKS.compareAndSet(p_chunks, directory, chunk, null);
+      }
+   } // retire
+
+
+   /**
+    * The Cells of one chunk of the Field, row by row.
+    */
+   private static final class Chunk
+   {
+      private final FieldOccupant[] p_occupants = new FieldOccupant[CELLS];
+      private final byte[]          p_species   = new byte[CELLS];
+      private final int[]           p_hunger    = new int[CELLS];
+      private final byte[]          p_neighbors = new byte[CELLS];
+
+      // How many Cells are occupied plus how many neighbors our Cells count,
+      // or RETIRED; a new chunk is created for the newcomer
+      @SuppressWarnings("unused")
+      private volatile int          p_count     = 1;
+   }
+
+   // Chunks are CHUNK_SIZE Cells wide and high; small enough that a sparse
+   // population leaves most of them empty
+   public static final int          CHUNK_SHIFT = 3;
+   public static final int          CHUNK_SIZE  = 1 << CHUNK_SHIFT;
+   private static final int         CHUNK_MASK  = CHUNK_SIZE - 1;
+   private static final int         CELLS       = CHUNK_SIZE * CHUNK_SIZE;
+
+   // The count of a chunk that has been dropped and must not be reused
+   private static final int         RETIRED     = -1;
+
+   // Acquire/release access to the directory, our chunks and their counts
+   private static final VarHandle   CHUNKS      = MethodHandles
+            .arrayElementVarHandle(Chunk[].class);
+   private static final VarHandle   OCCUPANTS   = MethodHandles
+            .arrayElementVarHandle(FieldOccupant[].class);
+   private static final VarHandle   SPECIES     = MethodHandles
+            .arrayElementVarHandle(byte[].class);
+   private static final VarHandle   HUNGER      = MethodHandles
+            .arrayElementVarHandle(int[].class);
+   private static final VarHandle   NEIGHBORS   = MethodHandles
+            .arrayElementVarHandle(byte[].class);
+   private static final VarHandle   COUNT;
+
+   static
+   {
+      try
+      {
+         COUNT = MethodHandles.lookup().findVarHandle(Chunk.class, "p_count",
+                  int.class);
+      }
+      catch (ReflectiveOperationException e)
+      {
+         throw new ExceptionInInitializerError(e);
+      }
+   }
+
+   private final int                p_width;
+   private final int                p_height;
+   private final int                p_chunksAcross;
+   private final Chunk[]            p_chunks;
+}
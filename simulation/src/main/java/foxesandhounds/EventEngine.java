@@ -0,0 +1,444 @@
+package foxesandhounds;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+
+/**
+ * Runs FieldOccupants as discrete events on simulated time instead of giving
+ * each its own sleeping thread. Every FieldOccupant sleeps and acts just as it
+ * does on a thread, for the same random number of milliseconds, but its
+ * wakeup waits on a TimingWheel whose ticks are simulated milliseconds, and
+ * the FieldOccupants due on a tick are woken in parallel on a ForkJoinPool.
+ *
+ * Simulated time either runs as fast as the workers can go, or is kept a
+ * fixed multiple of wall-clock time. A generation is a simulated second, so
+ * stepping an EventEngine 3600 times runs an hour of the Simulation.
+ *
+ * FieldOccupants woken on the same tick change the Field concurrently, so
+ * they take their Cells the same way they do on their own threads. One that
+ * goes idle is left off the wheel, or only kept there until its idle timeout,
+ * and is put back on for the next tick once a Cell next to it changes.
+ */
+public class EventEngine implements GenerationEngine
+{
+   /**
+    * Creates a new EventEngine.
+    *
+    * @param workers
+    *           the parallelism of the ForkJoinPool waking FieldOccupants.
+    * @param timeScale
+    *           how many simulated seconds pass per wall-clock second, or
+    *           AS_FAST_AS_POSSIBLE.
+    * @throws IllegalArgumentException
+    *            if the time scale is negative.
+    */
+   public EventEngine(int workers, double timeScale)
+   {
+      if (timeScale < 0)
+      {
+         throw new IllegalArgumentException("Time scale can't be negative.");
+      }
+
+      p_pool = new ForkJoinPool(workers);
+      p_timeScale = timeScale;
+   } // EventEngine
+
+
+   /**
+    * Schedules the first wakeup of a FieldOccupant that was placed on the
+    * Field. This may be called from any thread, including our workers.
+    *
+    * @param occupant
+    *           the FieldOccupant that was placed on the Field.
+    */
+   @Override
+   public void launch(FieldOccupant occupant)
+   {
+      p_launched.add(occupant);
+   } // launch
+
+
+   /**
+    * Schedules the first wakeups of FieldOccupants placed on the Field all at
+    * once. This may be called from any thread.
+    *
+    * @param occupants
+    *           the FieldOccupants that were placed on the Field.
+    */
+   @Override
+   public void launchAll(List<? extends FieldOccupant> occupants)
+   {
+      p_launched.addAll(occupants);
+   } // launchAll
+
+
+   /**
+    * Puts an idle FieldOccupant back on the wheel for the next tick. This may
+    * be called from any thread, including our workers.
+    *
+    * @param occupant
+    *           the FieldOccupant to wake.
+    */
+   @Override
+   public void wakeUp(FieldOccupant occupant)
+   {
+      p_woken.add(occupant);
+   } // wakeUp
+
+
+   /**
+    * Advances the Field one simulated second at a time until interrupted.
+    */
+   @Override
+   public void run()
+   {
+      try
+      {
+         while (!Thread.currentThread().isInterrupted())
+         {
+            step();
+         }
+      }
+      catch (InterruptedException e)
+      {
+         // We were told to stop.
+      }
+      finally
+      {
+         p_pool.shutdownNow();
+      }
+   } // run
+
+
+   /**
+    * Advances the Field by one simulated second, waking every FieldOccupant
+    * due in that time.
+    *
+    * @throws InterruptedException
+    *            if we are interrupted while keeping pace with the wall clock.
+    */
+   @Override
+   public void step() throws InterruptedException
+   {
+      int size;
+
+      // Simulated time starts when we are first stepped.
+      if (!p_started)
+      {
+         p_wallStart = System.nanoTime();
+         p_started = true;
+      }
+
+      for (int tick = 0; tick < TICKS_PER_GENERATION; tick++)
+      {
+         scheduleLaunched();
+         p_wheel.advance(p_due);
+         size = p_due.size();
+
+         if (size == 0)
+         {
+            continue;
+         }
+
+         keepPace(p_wheel.getTime());
+
+         // Idle FieldOccupants whose time ran out are no longer idle.
+         for (TimingWheel.Wakeup wakeup : p_due)
+         {
+            if (wakeup.p_idleSince >= 0)
+            {
+               p_idle.remove(wakeup.p_occupant);
+               wakeup.p_occupant.stopIdling();
+               wakeup.p_idleSince = -1;
+            }
+         }
+
+         // Hand a tick's worth of wakeups to the pool only if there are
+         // enough of them to share.
+         if (size <= BATCH_SIZE)
+         {
+            wakeAll(0, size, ThreadLocalRandom.current());
+         }
+         else
+         {
+            p_pool.invoke(new Wakeups(0, size));
+         }
+
+         for (TimingWheel.Wakeup wakeup : p_due)
+         {
+            if (wakeup.p_sleep > 0)
+            {
+               p_wheel.schedule(wakeup, wakeup.p_sleep);
+            }
+            else if (wakeup.p_sleep == IDLE)
+            {
+               idle(wakeup);
+            }
+         }
+
+         p_due.clear();
+         scheduleWoken();
+      } // for
+
+      scheduleLaunched();
+      keepPace(p_wheel.getTime());
+      p_generation++;
+   } // step
+
+
+   /**
+    * Returns the number of simulated seconds this EventEngine has completed.
+    *
+    * @return the number of generations completed.
+    */
+   @Override
+   public long getGeneration()
+   {
+      return p_generation;
+   } // getGeneration
+
+
+   /**
+    * Returns the number of wakeups on the wheel, including idle timeouts and
+    * any that were cancelled by an earlier wakeup but have yet to come due.
+    *
+    * @return the number of pending wakeups.
+    */
+   public int getPending()
+   {
+      return p_wheel.size();
+   } // getPending
+
+
+   /**
+    * Schedules the first wakeup of every FieldOccupant launched since we last
+    * looked.
+    */
+   private void scheduleLaunched()
+   {
+      RandomGenerator r = ThreadLocalRandom.current();
+      FieldOccupant occupant;
+
+      while ((occupant = p_launched.poll()) != null)
+      {
+         TimingWheel.Wakeup wakeup = new TimingWheel.Wakeup(occupant);
+
+         wakeup.p_sleep = occupant.nextSleep(r);
+         p_wheel.schedule(wakeup, wakeup.p_sleep);
+      }
+   } // scheduleLaunched
+
+
+   /**
+    * Takes a FieldOccupant that went idle off the wheel until a Cell next to
+    * it changes, or, if it has an idle timeout, until then.
+    *
+    * @param wakeup
+    *           the Wakeup of the idle FieldOccupant.
+    */
+   private void idle(TimingWheel.Wakeup wakeup)
+   {
+      int timeout = wakeup.p_occupant.getIdleTimeout();
+
+      wakeup.p_idleSince = p_wheel.getTime();
+      p_idle.put(wakeup.p_occupant, wakeup);
+
+      if (timeout != FieldOccupant.NO_TIMEOUT)
+      {
+         wakeup.p_sleep = (int) Math.min(timeout, TimingWheel.SPAN - 1);
+         p_wheel.schedule(wakeup, wakeup.p_sleep);
+      }
+   } // idle
+
+
+   /**
+    * Puts every idle FieldOccupant woken since we last looked back on the
+    * wheel for the next tick, cancelling its idle timeout if it had one.
+    */
+   private void scheduleWoken()
+   {
+      FieldOccupant occupant;
+      TimingWheel.Wakeup idle;
+      TimingWheel.Wakeup wakeup;
+
+      while ((occupant = p_woken.poll()) != null)
+      {
+         idle = p_idle.remove(occupant);
+
+         // Its time ran out before we got to it.
+         if (idle == null)
+         {
+            continue;
+         }
+
+         wakeup = idle;
+
+         if (idle.p_sleep > 0)
+         {
+            idle.p_cancelled = true;
+            wakeup = new TimingWheel.Wakeup(occupant);
+         }
+
+         wakeup.p_sleep = (int) (p_wheel.getTime() + 1 - idle.p_idleSince);
+         idle.p_idleSince = -1;
+         p_wheel.schedule(wakeup, 1);
+      }
+   } // scheduleWoken
+
+
+   /**
+    * Wakes a range of the FieldOccupants due on this tick, noting in each
+    * Wakeup how long its FieldOccupant sleeps next, IDLE if it has gone idle,
+    * or NO_WAKEUP if it has left the Field or was woken some other way.
+    *
+    * @param first
+    *           the index of the first wakeup due.
+    * @param end
+    *           one past the index of the last wakeup due.
+    * @param r
+    *           the source of randomness for the FieldOccupants.
+    */
+   private void wakeAll(int first, int end, RandomGenerator r)
+   {
+      for (int i = first; i < end; i++)
+      {
+         TimingWheel.Wakeup wakeup = p_due.get(i);
+         FieldOccupant occupant = wakeup.p_occupant;
+
+         if (wakeup.p_cancelled || !occupant.wake(r, wakeup.p_sleep))
+         {
+            wakeup.p_sleep = NO_WAKEUP;
+         }
+         else if (occupant.getIdleTimeout() == FieldOccupant.NOT_IDLE)
+         {
+            wakeup.p_sleep = occupant.nextSleep(r);
+         }
+         else
+         {
+            // A Cell next to it may have changed while it looked, in which
+            // case it looks again on the next tick.
+            wakeup.p_sleep = occupant.startIdling() ? IDLE : 1;
+         }
+      }
+   } // wakeAll
+
+
+   /**
+    * Waits until the wall clock catches up with a tick of simulated time,
+    * unless we run as fast as possible.
+    *
+    * @param tick
+    *           the tick of simulated time about to be processed.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting.
+    */
+   private void keepPace(long tick) throws InterruptedException
+   {
+      long wait;
+
+      if (p_timeScale == AS_FAST_AS_POSSIBLE)
+      {
+         return;
+      }
+
+      wait = p_wallStart + (long) (TimeUnit.MILLISECONDS.toNanos(tick)
+               / p_timeScale) - System.nanoTime();
+
+      if (wait > 0)
+      {
+         TimeUnit.NANOSECONDS.sleep(wait);
+      }
+   } // keepPace
+
+
+   /**
+    * Wakes a range of the FieldOccupants due on this tick, splitting the
+    * range in half until each task has at most BATCH_SIZE of them.
+    */
+   private class Wakeups extends RecursiveAction
+   {
+      /**
+       * Creates a new Wakeups.
+       *
+       * @param first
+       *           the index of the first wakeup due.
+       * @param end
+       *           one past the index of the last wakeup due.
+       */
+      Wakeups(int first, int end)
+      {
+         p_first = first;
+         p_end = end;
+      }
+
+
+      /**
+       * Wakes our FieldOccupants, or splits them between two new tasks.
+       */
+      @Override
+      protected void compute()
+      {
+         int middle;
+
+         if (p_end - p_first > BATCH_SIZE)
+         {
+            middle = (p_first + p_end) >>> 1;
+            invokeAll(new Wakeups(p_first, middle),
+                     new Wakeups(middle, p_end));
+         }
+         else
+         {
+            wakeAll(p_first, p_end, ThreadLocalRandom.current());
+         }
+      } // compute
+
+      private static final long serialVersionUID = 1L;
+
+      private final int         p_first;
+      private final int         p_end;
+   }
+
+   // Simulated time never waits for the wall clock at this time scale
+   public static final double             AS_FAST_AS_POSSIBLE  = 0;
+
+   // A tick is a simulated millisecond, and a generation a simulated second
+   public static final int                TICKS_PER_GENERATION = 1000;
+
+   // The most wakeups a task handles without splitting
+   private static final int               BATCH_SIZE           = 64;
+
+   // What a Wakeup's sleep is set to once its FieldOccupant leaves the
+   // Field, or goes idle
+   private static final int               NO_WAKEUP            = -1;
+   private static final int               IDLE                 = -2;
+
+   private final ForkJoinPool             p_pool;
+   private final double                   p_timeScale;
+   private final TimingWheel              p_wheel = new TimingWheel();
+   private final List<TimingWheel.Wakeup> p_due   = new ArrayList<>();
+
+   // FieldOccupants launched but not yet scheduled, from any thread
+   private final Queue<FieldOccupant>     p_launched =
+            new ConcurrentLinkedQueue<>();
+
+   // Idle FieldOccupants, and those woken since we last looked, from any
+   // thread
+   private final Map<FieldOccupant, TimingWheel.Wakeup> p_idle =
+            new HashMap<>();
+   private final Queue<FieldOccupant>     p_woken =
+            new ConcurrentLinkedQueue<>();
+
+   private boolean                        p_started;
+   private long                           p_wallStart;
+   private volatile long                  p_generation;
+}
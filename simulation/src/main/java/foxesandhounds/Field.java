@@ -0,0 +1,935 @@
+package foxesandhounds;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * The Field class defines an object that models a Field that can contain
+ * things. The state of the Field is kept in a FieldStorage, flat unless we
+ * are given another; the Cells handed out by getCellAt are light views onto
+ * that storage.
+ *
+ * The size of a Field never changes, so reads go straight to storage without
+ * taking any lock. Writes take the lock of the Cell they change, or, once the
+ * Field is set to be optimistic, claim the version of the Cell instead.
+ */
+public class Field
+{
+   /**
+    * Creates an empty field of given width and height.
+    *
+    * @param width
+    *           of the field.
+    * @param height
+    *           of the field.
+    * @param fieldUpdated
+    *           the flag to set if we should redraw the Field.
+    */
+   public Field(int width, int height, AtomicBoolean fieldUpdated)
+   {
+      // Every location starts out empty.
+      this(new FlatFieldStorage(width, height), fieldUpdated);
+   } // Field
+
+
+   /**
+    * Creates a field on the given storage, which holds its size and any
+    * FieldOccupants already placed.
+    *
+    * @param storage
+    *           the storage of the field's Cells.
+    * @param fieldUpdated
+    *           the flag to set if we should redraw the Field.
+    */
+   public Field(FieldStorage storage, AtomicBoolean fieldUpdated)
+   {
+      int width = storage.getWidth();
+      int height = storage.getHeight();
+
+      p_storage = storage;
+      p_cells = FieldStorage.countCells(width, height);
+
+      // Cells are guarded by striped locks.
+      p_lockManager = new CellLockManager(p_cells);
+
+      // Precompute where stepping one Cell in each direction wraps to, so
+      // neighbor lookups never need modulo arithmetic.
+      p_nextX = new int[width];
+      p_prevX = new int[width];
+      p_nextY = new int[height];
+      p_prevY = new int[height];
+
+      for (int i = 0; i < width; i++)
+      {
+         p_nextX[i] = i + 1 == width ? 0 : i + 1;
+         p_prevX[i] = i == 0 ? width - 1 : i - 1;
+      }
+
+      for (int j = 0; j < height; j++)
+      {
+         p_nextY[j] = j + 1 == height ? 0 : j + 1;
+         p_prevY[j] = j == 0 ? height - 1 : j - 1;
+      }
+
+      p_fieldUpdated = fieldUpdated;
+   } // Field
+
+
+   /**
+    * Creates an empty field of given width and height.
+    *
+    * @param width
+    *           of the field.
+    * @param height
+    *           of the field.
+    */
+   public Field(int width, int height)
+   {
+      // Call our general constructor, ignoring the drawField parameter.
+      this(width, height, new AtomicBoolean(false));
+   } // Field
+
+
+   /**
+    * Returns the width of the field.
+    * 
+    * @return the width of the field.
+    */
+   public int getWidth()
+   {
+      return p_storage.getWidth();
+   } // getWidth
+
+
+   /**
+    * Returns the height of the field.
+    * 
+    * @return the height of the field.
+    */
+   public int getHeight()
+   {
+      return p_storage.getHeight();
+   } // getHeight
+
+
+   /**
+    * Place a FieldOccupant in Cell (x, y) and return a reference to the
+    * FieldOccupant.
+    *
+    * @param x
+    *           is the x-coordinate of the Cell to place a FieldOccupant in.
+    * @param y
+    *           is the y-coordinate of the Cell to place a FieldOccupant in.
+    * @param toAdd
+    *           is the FieldOccupant to place.
+    * 
+    * @return the FieldOccupant we just set, or null if it was null.
+    */
+   public FieldOccupant setCellAt(int x, int y, FieldOccupant toAdd)
+   {
+      int index = indexOf(x, y);
+      SimulationEvents.CellLockContention contention;
+      long version;
+
+      // If we're optimistic, claim the Cell's version so transactions that
+      // read the Cell notice it changed.
+      if (p_versions != null)
+      {
+         version = p_versions.claim(index);
+         storeAt(index, toAdd);
+         p_versions.publish(index, version);
+         return toAdd;
+      }
+
+      // Update the Occupant of the Cell in our storage while holding its
+      // lock, which callers changing several Cells will already hold.
+      contention = new SimulationEvents.CellLockContention();
+      contention.begin();
+      p_lockManager.lock(index);
+      contention.end();
+
+      // Tell Flight Recorder if we waited, should it be listening.
+      if (contention.shouldCommit())
+      {
+         SimulationEvents.cellLockContention(contention, 0,
+                  index % getWidth(), index / getWidth(), 1, true);
+      }
+
+      try
+      {
+         storeAt(index, toAdd);
+      }
+      finally
+      {
+         p_lockManager.unlock(index);
+      }
+
+      return toAdd;
+   } // setCellAt
+
+
+   /**
+    * Places a FieldOccupant in the Cell at the given index without locking it.
+    * The caller must already own the Cell.
+    * 
+    * @param index
+    *           is the index of the Cell to place a FieldOccupant in.
+    * @param toAdd
+    *           is the FieldOccupant to place.
+    */
+   void storeAt(int index, FieldOccupant toAdd)
+   {
+      // We own the Cell, so nobody can change it between reading what it
+      // held and replacing it.
+      byte oldSpecies = p_storage.getSpecies(index);
+
+      p_statistics.recordChange(p_storage.getOccupant(index), toAdd);
+      p_storage.setOccupant(index, toAdd);
+      markDirty(index);
+      updateNeighbors(index, oldSpecies, p_storage.getSpecies(index), true);
+      fieldUpdated();
+   } // storeAt
+
+
+   /**
+    * Places a FieldOccupant in an empty Cell of a Field nobody has started
+    * running or drawing yet, straight into storage. Unlike setCellAt this
+    * takes no lock, keeps no statistics and tells nobody; finishPlacing does
+    * what's left once every FieldOccupant is placed. Threads may place
+    * FieldOccupants in different Cells at once.
+    * 
+    * @param index
+    *           is the index of the empty Cell to place a FieldOccupant in.
+    * @param toAdd
+    *           is the FieldOccupant to place.
+    */
+   void placeAt(int index, FieldOccupant toAdd)
+   {
+      p_storage.setOccupant(index, toAdd);
+      updateNeighbors(index, EMPTY, toAdd.getSpecies(), false);
+   } // placeAt
+
+
+   /**
+    * Empties a Cell straight from storage, for engines that copy the Field
+    * into a form of their own and only report through its FieldStatistics.
+    * Like placeAt this takes no lock, keeps no statistics and tells nobody,
+    * so nobody else may be running or drawing the Field. The neighbor
+    * counts of the Cells around it are kept up to date.
+    * 
+    * @param index
+    *           is the index of the Cell to empty.
+    */
+   void forgetAt(int index)
+   {
+      byte species = p_storage.getSpecies(index);
+
+      p_storage.setOccupant(index, null);
+      updateNeighbors(index, species, EMPTY, false);
+   } // forgetAt
+
+
+   /**
+    * Finishes placing FieldOccupants with placeAt, counting them all at once
+    * and letting whoever draws us know the Field changed.
+    * 
+    * @param foxes
+    *           is the number of Foxes placed.
+    * @param hounds
+    *           is the number of Hounds placed.
+    */
+   void finishPlacing(long foxes, long hounds)
+   {
+      p_statistics.recordPopulation(foxes, hounds);
+      fieldUpdated();
+   } // finishPlacing
+
+
+   /**
+    * Returns the Cell at the coordinates provided.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell whose contents are queried.
+    * @param y
+    *           is the y-coordinate of the Cell whose contents are queried.
+    *
+    * @return the Cell at the coordinates provided.
+    */
+   public Cell<FieldOccupant> getCellAt(int x, int y)
+   {
+      return new Cell<>(this, normalizeIndex(x, WIDTH_INDEX),
+               normalizeIndex(y, !WIDTH_INDEX));
+   } // getCellAt
+
+
+   /**
+    * Returns the FieldOccupant of the Cell at the coordinates provided.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell whose contents are queried.
+    * @param y
+    *           is the y-coordinate of the Cell whose contents are queried.
+    *
+    * @return the FieldOccupant of the Cell, or null if it is empty.
+    */
+   public FieldOccupant getOccupantAt(int x, int y)
+   {
+      return p_storage.getOccupant(indexOf(x, y));
+   } // getOccupantAt
+
+
+   /**
+    * Returns the species of the Cell at the coordinates provided.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell whose contents are queried.
+    * @param y
+    *           is the y-coordinate of the Cell whose contents are queried.
+    *
+    * @return EMPTY, FOX or HOUND.
+    */
+   public byte getSpeciesAt(int x, int y)
+   {
+      return p_storage.getSpecies(indexOf(x, y));
+   } // getSpeciesAt
+
+
+   /**
+    * Returns how many Foxes are in the 8 Cells around the Cell at the
+    * coordinates provided. The count is kept up to date as Cells change, so
+    * this doesn't look at the neighbors.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell whose neighbors are counted.
+    * @param y
+    *           is the y-coordinate of the Cell whose neighbors are counted.
+    *
+    * @return the number of Foxes next to the Cell.
+    */
+   public int getFoxNeighborsAt(int x, int y)
+   {
+      return FieldStorage.countFoxes(p_storage.getNeighbors(indexOf(x, y)));
+   } // getFoxNeighborsAt
+
+
+   /**
+    * Returns how many Hounds are in the 8 Cells around the Cell at the
+    * coordinates provided. The count is kept up to date as Cells change, so
+    * this doesn't look at the neighbors.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell whose neighbors are counted.
+    * @param y
+    *           is the y-coordinate of the Cell whose neighbors are counted.
+    *
+    * @return the number of Hounds next to the Cell.
+    */
+   public int getHoundNeighborsAt(int x, int y)
+   {
+      return FieldStorage.countHounds(p_storage.getNeighbors(indexOf(x, y)));
+   } // getHoundNeighborsAt
+
+
+   /**
+    * Returns the hunger of the Cell at the coordinates provided. Only a Cell
+    * holding a Hound has a hunger other than 0.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell whose contents are queried.
+    * @param y
+    *           is the y-coordinate of the Cell whose contents are queried.
+    *
+    * @return the fed status of the Hound in the Cell, or 0.
+    */
+   public int getHungerAt(int x, int y)
+   {
+      return p_storage.getHunger(indexOf(x, y));
+   } // getHungerAt
+
+
+   /**
+    * Records the current fed status of a Hound in the Cell it occupies, and
+    * marks the Cell changed so it is redrawn in its new color. Does nothing
+    * if the Hound is no longer on the Field. Only the Hound itself changes
+    * its hunger, so no lock is needed.
+    * 
+    * @param hound
+    *           the Hound whose hunger changed.
+    */
+   public void updateHunger(Hound hound)
+   {
+      int index = indexOf(hound.getRow(), hound.getCol());
+
+      if (p_storage.getOccupant(index) == hound)
+      {
+         p_storage.setHunger(index, hound.getFedStatus());
+         markDirty(index);
+         fieldUpdated();
+      }
+   } // updateHunger
+
+
+   /**
+    * Switches this Field to optimistic concurrency, where FieldOccupants change
+    * Cells through CellTransactions rather than locks. Must be called before
+    * anything is placed on the Field.
+    * 
+    * @param optimistic
+    *           true to use optimistic concurrency, false to use locks.
+    */
+   public void setOptimistic(boolean optimistic)
+   {
+      p_versions = optimistic ? new CellVersions(p_cells)
+               : null;
+   } // setOptimistic
+
+
+   /**
+    * Returns true if this Field uses optimistic concurrency.
+    * 
+    * @return true if this Field uses optimistic concurrency.
+    */
+   public boolean isOptimistic()
+   {
+      return p_versions != null;
+   } // isOptimistic
+
+
+   /**
+    * Returns the versions of the Cells of this Field, or null if this Field
+    * uses locks.
+    * 
+    * @return the CellVersions of this Field.
+    */
+   public CellVersions getVersions()
+   {
+      return p_versions;
+   } // getVersions
+
+
+   /**
+    * Returns the CellLockManager guarding the Cells of this Field. Cells are
+    * identified to it by their index.
+    * 
+    * @return the CellLockManager of this Field.
+    */
+   public CellLockManager getLockManager()
+   {
+      return p_lockManager;
+   } // getLockManager
+
+
+   /**
+    * Returns the FieldStatistics counting what happens on this Field.
+    * 
+    * @return the FieldStatistics of this Field.
+    */
+   public FieldStatistics getStatistics()
+   {
+      return p_statistics;
+   } // getStatistics
+
+
+   /**
+    * Returns the AgentMetrics measuring how FieldOccupants contend for the
+    * Cells of this Field.
+    * 
+    * @return the AgentMetrics of this Field.
+    */
+   public AgentMetrics getMetrics()
+   {
+      return p_metrics;
+   } // getMetrics
+
+
+   /**
+    * Returns true if this Cell is occupied.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell whose contents are queried.
+    * @param y
+    *           is the y-coordinate of the Cell whose contents are queried.
+    *
+    * @return true if the Cell is occupied
+    */
+   public boolean isOccupied(int x, int y)
+   {
+      return getOccupantAt(x, y) != null;
+   } // isOccupied
+
+
+   /**
+    * Returns a collection of the occupants of Cells adjacent to the given Cell.
+    * Hot paths should use a NeighborCursor instead, which allocates nothing.
+    * 
+    * @return a collection of the occupants of Cells adjacent to the given Cell.
+    */
+   public ArrayList<Cell<FieldOccupant>> getNeighborsOf(int x, int y)
+   {
+      NeighborCursor cursor = new NeighborCursor(this);
+      ArrayList<Cell<FieldOccupant>> neighbors = new ArrayList<>(8);
+
+      // Step through each of the 8 neighbors, adding them to our neighbor set
+      cursor.reset(x, y);
+
+      while (cursor.next())
+      {
+         neighbors.add(new Cell<>(this, cursor.getX(), cursor.getY()));
+      }
+
+      return neighbors;
+
+   } // getNeighborsOf
+
+
+   /**
+    * Returns the x-coordinate one Cell to the right of a normalized
+    * x-coordinate, wrapping around the edge of the Field.
+    * 
+    * @param x
+    *           a normalized x-coordinate.
+    * @return the x-coordinate to the right of x.
+    */
+   public int getNextX(int x)
+   {
+      return p_nextX[x];
+   } // getNextX
+
+
+   /**
+    * Returns the x-coordinate one Cell to the left of a normalized
+    * x-coordinate, wrapping around the edge of the Field.
+    * 
+    * @param x
+    *           a normalized x-coordinate.
+    * @return the x-coordinate to the left of x.
+    */
+   public int getPrevX(int x)
+   {
+      return p_prevX[x];
+   } // getPrevX
+
+
+   /**
+    * Returns the y-coordinate one Cell below a normalized y-coordinate,
+    * wrapping around the edge of the Field.
+    * 
+    * @param y
+    *           a normalized y-coordinate.
+    * @return the y-coordinate below y.
+    */
+   public int getNextY(int y)
+   {
+      return p_nextY[y];
+   } // getNextY
+
+
+   /**
+    * Returns the y-coordinate one Cell above a normalized y-coordinate,
+    * wrapping around the edge of the Field.
+    * 
+    * @param y
+    *           a normalized y-coordinate.
+    * @return the y-coordinate above y.
+    */
+   public int getPrevY(int y)
+   {
+      return p_prevY[y];
+   } // getPrevY
+
+
+   /**
+    * Sets the state object for this Field.
+    * 
+    * @param fieldUpdated
+    *           true if we should draw the Field, false otherwise.
+    */
+   public boolean getAndSetFieldUpdated(boolean fieldUpdated)
+   {
+      return p_fieldUpdated.getAndSet(fieldUpdated);
+   } // setFieldUpdated
+
+
+   /**
+    * Visits every Cell that changed since the last time dirty Cells were
+    * drained, and forgets about them. A Cell that changes again while we are
+    * visiting is visited again next time, so no change is ever missed. The
+    * first drain after the bitset is created visits every Cell instead.
+    * 
+    * @param visitor
+    *           is told about each Cell that changed.
+    */
+   public void drainDirtyCells(CellVisitor visitor)
+   {
+      int width = getWidth();
+      long[] dirty = getDirty();
+      long word;
+      int index;
+
+      // Writers that looked for the bitset just before it was published
+      // didn't mark their Cells, and may have written them after the first
+      // full draw read them. Their writes are done by now, so one more pass
+      // over every Cell picks them up.
+      if (p_redrawAll)
+      {
+         p_redrawAll = false;
+         clearDirtyCells();
+
+         for (index = 0; index < p_cells; index++)
+         {
+            visitor.visit(index % width, index / width);
+         }
+
+         return;
+      }
+
+      for (int i = 0; i < dirty.length; i++)
+      {
+         // Skip clean words without writing to them.
+         if ((long) DIRTY.getOpaque(dirty, i) == 0)
+         {
+            continue;
+         }
+
+         word = (long) DIRTY.getAndSet(dirty, i, 0L);
+
+         while (word != 0)
+         {
+            index = i * Long.SIZE + Long.numberOfTrailingZeros(word);
+            visitor.visit(index % width, index / width);
+            word &= word - 1;
+         }
+      }
+   } // drainDirtyCells
+
+
+   /**
+    * Forgets which Cells changed, e.g. after drawing the whole Field.
+    */
+   public void clearDirtyCells()
+   {
+      long[] dirty = getDirty();
+
+      for (int i = 0; i < dirty.length; i++)
+      {
+         DIRTY.setOpaque(dirty, i, 0L);
+      }
+   } // clearDirtyCells
+
+
+   /**
+    * Returns our dirty bitset, creating it the first time anybody asks for
+    * the changed Cells. Until then nobody draws the Field, so a headless
+    * Field never pays for a bit per Cell.
+    *
+    * @return the dirty bitset.
+    */
+   private synchronized long[] getDirty()
+   {
+      if (p_dirty == null)
+      {
+         p_dirty = new long[(p_cells + Long.SIZE - 1) / Long.SIZE];
+         p_redrawAll = true;
+      }
+
+      return p_dirty;
+   } // getDirty
+
+
+   /**
+    * Sets who to tell when this Field changes after having been drawn. The
+    * listener is run on whichever thread changed the Field, so it must be
+    * quick.
+    * 
+    * @param updateListener
+    *           the listener to run, or null for nobody.
+    */
+   public void setUpdateListener(Runnable updateListener)
+   {
+      p_updateListener = updateListener;
+   } // setUpdateListener
+
+
+   /**
+    * Marks the Cell at the given index as changed since the last frame.
+    * 
+    * @param index
+    *           is the index of the Cell that changed.
+    */
+   private void markDirty(int index)
+   {
+      long[] dirty = p_dirty;
+
+      // Nobody draws us yet. A drawer that publishes the bitset while we
+      // write redraws every Cell once more, so this read is all we need.
+      if (dirty == null)
+      {
+         return;
+      }
+
+      // This must be an atomic update after the Cell is written, so a drawer
+      // that has just cleared the bit can't miss the change.
+      DIRTY.getAndBitwiseOr(dirty, index / Long.SIZE, 1L << index);
+   } // markDirty
+
+
+   /**
+    * Notes that we changed, waking up whoever draws us if they were waiting
+    * for a change.
+    */
+   private void fieldUpdated()
+   {
+      // We updated the Field, so make sure our state indicates so. Only the
+      // first change since the last frame needs to wake up whoever draws us;
+      // checking first saves writing the flag on every change.
+      if (!p_fieldUpdated.get() && !getAndSetFieldUpdated(true))
+      {
+         Runnable listener = p_updateListener;
+
+         if (listener != null)
+         {
+            listener.run();
+         }
+      }
+   } // fieldUpdated
+
+
+   /**
+    * Moves a changed Cell's old species out of the neighbor counts of the 8
+    * Cells around it and its new species in, and, if asked to, tells their
+    * FieldOccupants it changed so any of them that are idle wake up.
+    * 
+    * @param index
+    *           is the index of the Cell that changed.
+    * @param oldSpecies
+    *           is the species the Cell held.
+    * @param newSpecies
+    *           is the species the Cell holds now.
+    * @param notify
+    *           is true to tell the FieldOccupants around the Cell.
+    */
+   private void updateNeighbors(int index, byte oldSpecies, byte newSpecies,
+            boolean notify)
+   {
+      int width = getWidth();
+      int y = index / width;
+      int x = index - y * width;
+      int prevX = p_prevX[x];
+      int nextX = p_nextX[x];
+      int above = p_prevY[y] * width;
+      int row = y * width;
+      int below = p_nextY[y] * width;
+      int added = 0;
+      int removed = 0;
+
+      // A FieldOccupant replaced by another of its species leaves the counts
+      // alone, but its neighbors still hear about it.
+      if (oldSpecies != newSpecies)
+      {
+         added = neighborOf(newSpecies);
+         removed = neighborOf(oldSpecies);
+      }
+
+      updateNeighbor(above + prevX, added, removed, notify);
+      updateNeighbor(above + x, added, removed, notify);
+      updateNeighbor(above + nextX, added, removed, notify);
+      updateNeighbor(row + prevX, added, removed, notify);
+      updateNeighbor(row + nextX, added, removed, notify);
+      updateNeighbor(below + prevX, added, removed, notify);
+      updateNeighbor(below + x, added, removed, notify);
+      updateNeighbor(below + nextX, added, removed, notify);
+   } // updateNeighbors
+
+
+   /**
+    * Updates the neighbor counts of one Cell next to a Cell that changed and
+    * tells its FieldOccupant, if there is one and we were asked to.
+    * 
+    * @param index
+    *           is the index of the Cell next to the one that changed.
+    * @param added
+    *           is what to add to its neighbor counts, or 0.
+    * @param removed
+    *           is what to take away from its neighbor counts, or 0.
+    * @param notify
+    *           is true to tell its FieldOccupant.
+    */
+   private void updateNeighbor(int index, int added, int removed,
+            boolean notify)
+   {
+      // Count the newcomer before dropping the species it replaced, so sparse
+      // storage doesn't drop a chunk it is about to need again.
+      if (added != 0)
+      {
+         p_storage.addNeighbors(index, added);
+      }
+
+      if (removed != 0)
+      {
+         p_storage.addNeighbors(index, -removed);
+      }
+
+      if (notify)
+      {
+         notifyOccupant(index);
+      }
+   } // updateNeighbor
+
+
+   /**
+    * Returns what one neighbor of a species adds to the neighbor counts of a
+    * Cell.
+    * 
+    * @param species
+    *           is EMPTY, FOX or HOUND.
+    * @return FOX_NEIGHBOR, HOUND_NEIGHBOR, or 0 for an empty Cell.
+    */
+   private static int neighborOf(byte species)
+   {
+      switch (species)
+      {
+         case FOX:
+            return FieldStorage.FOX_NEIGHBOR;
+
+         case HOUND:
+            return FieldStorage.HOUND_NEIGHBOR;
+
+         default:
+            return 0;
+      }
+   } // neighborOf
+
+
+   /**
+    * Tells the FieldOccupant of a Cell, if there is one, that a Cell next to
+    * it changed.
+    * 
+    * @param index
+    *           is the index of the Cell whose FieldOccupant to tell.
+    */
+   private void notifyOccupant(int index)
+   {
+      FieldOccupant occupant = p_storage.getOccupant(index);
+
+      if (occupant != null)
+      {
+         occupant.neighborhoodChanged();
+      }
+   } // notifyOccupant
+
+
+   /**
+    * Returns the storage index of the Cell at the coordinates provided.
+    * 
+    * @param x
+    *           is the x-coordinate of the Cell.
+    * @param y
+    *           is the y-coordinate of the Cell.
+    * 
+    * @return the storage index of the Cell.
+    */
+   public int indexOf(int x, int y)
+   {
+      return p_storage.indexOf(normalizeIndex(x, WIDTH_INDEX),
+               normalizeIndex(y, !WIDTH_INDEX));
+   } // indexOf
+
+
+   /**
+    * Normalize an index (positive or negative) by translating it to a legal
+    * reference within the bounds of the field.
+    *
+    * @param index
+    *           the index to normalize.
+    * @param isWidth
+    *           is true when normalizing a width reference, false if a height
+    *           reference
+    *
+    * @return the normalized index value
+    */
+   int normalizeIndex(int index, boolean isWidthIndex)
+   {
+      // Set the bounds depending on whether we're working with the
+      // width or height (i.e., !width)
+      int bounds = isWidthIndex ? getWidth() : getHeight();
+
+      // Most indexes are already on the Field, so skip the arithmetic.
+      if (index >= 0 && index < bounds)
+      {
+         return index;
+      }
+      // If x is non-negative use modulo arithmetic to wrap around
+      else if (index >= 0)
+      {
+         return index % bounds;
+      }
+      // For negative values we convert to positive, modulus the bounds and
+      // then subtract from the width (i.e., we count from bounds down to
+      // 0. If we get say, -12 on a field 10 wide, we convert -12 to
+      // 12, modulus with 10 to get 2 and then subtract that from 10 to get 8).
+      // Multiples of the bounds come out as bounds, which wraps to 0.
+      else
+      {
+         int normalized = bounds - (-index % bounds);
+
+         return normalized == bounds ? 0 : normalized;
+      }
+   } // normalizeIndex
+
+   /**
+    * Define any variables associated with a Field object here. These variables
+    * MUST be private.
+    */
+   private final FieldStorage p_storage;
+
+   // The number of Cells in our storage
+   private final int p_cells;
+
+   // Bitset of the Cells that changed since they were last drawn, null until
+   // somebody first asks which did
+   private volatile long[] p_dirty;
+
+   // Set when the bitset is published, until the next drain has visited
+   // every Cell
+   private volatile boolean p_redrawAll;
+
+   // Atomic access to the words of our dirty bitset
+   private static final VarHandle DIRTY = MethodHandles
+            .arrayElementVarHandle(long[].class);
+
+   // Striped locks guarding our Cells
+   private final CellLockManager p_lockManager;
+
+   // Counts of births, meals and starvations on this Field
+   private final FieldStatistics p_statistics = new FieldStatistics();
+
+   // Measurements of how FieldOccupants contend for our Cells
+   private final AgentMetrics p_metrics = new AgentMetrics();
+
+   // Versions of our Cells when we are optimistic, null otherwise
+   private volatile CellVersions p_versions;
+
+   // Where stepping one Cell right, left, down or up from each coordinate
+   // wraps to
+   private final int[] p_nextX;
+   private final int[] p_prevX;
+   private final int[] p_nextY;
+   private final int[] p_prevY;
+
+   // Used in index normalizing method to distinguish between x and y
+   // indices
+   static final boolean WIDTH_INDEX = true;
+
+   private final AtomicBoolean p_fieldUpdated;
+
+   // Who to tell when the Field changes after being drawn
+   private volatile Runnable p_updateListener;
+
+   // Species of the occupant of a Cell, as kept in storage
+   public static final byte EMPTY = 0;
+   public static final byte FOX   = 1;
+   public static final byte HOUND = 2;
+}
@@ -0,0 +1,666 @@
+package foxesandhounds;
+
+import java.awt.Color;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+
+/**
+ * Abstract parent class for objects that can occupy a cell in the Field. The
+ * behaviour of a FieldOccupant is a Runnable that is started on whatever kind
+ * of thread the current AgentLauncher provides.
+ *
+ * A FieldOccupant that wakes up to find nothing it can do until one of the 8
+ * Cells around it changes goes idle instead of waking up again and again to
+ * look. The Field tells the occupants around every Cell that changes, and the
+ * first to tell an idle FieldOccupant has its AgentLauncher wake it.
+ */
+public abstract class FieldOccupant
+         implements Runnable, Comparable<FieldOccupant>
+{
+   /**
+    * Creates a FieldOccupant.
+    * 
+    * @param row
+    *           The row of this FieldOccupant.
+    * @param col
+    *           The col of this FieldOccupant.
+    * @param theField
+    *           The Field this FieldOccupant is on.
+    */
+   public FieldOccupant(int row, int col, Field theField,
+            Phaser startPhaser)
+   {
+      setRow(row);
+      setCol(col);
+      setTheField(theField);
+      setStartPhaser(startPhaser);
+      p_neighborCursor = new NeighborCursor(theField);
+   }
+
+
+   /**
+    * Returns the color to use for a Cell containing a particular kind of
+    * occupant. The Color returned may depend on the state of the FieldOccupant
+    * itself.
+    * 
+    * @return The Color to use for a Cell containing a particular kind of
+    *         occupant.
+    */
+   abstract public Color getDisplayColor();
+
+
+   /**
+    * Performs one generation of this FieldOccupant's behaviour. Used instead of
+    * run() when the Field is advanced in discrete generations.
+    * 
+    * @param r
+    *           the source of randomness for this generation.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting to lock Cells.
+    */
+   abstract public void step(RandomGenerator r) throws InterruptedException;
+
+
+   /**
+    * Returns how long this FieldOccupant sleeps before it next acts: a fixed
+    * time plus a random time, in milliseconds.
+    *
+    * @param r
+    *           the source of randomness for the random part.
+    * @return how many milliseconds to sleep for.
+    */
+   public int nextSleep(RandomGenerator r)
+   {
+      return r.nextInt(DEFAULT_SLEEP_VARIABLE) + DEFAULT_SLEEP;
+   }
+
+
+   /**
+    * Acts once after sleeping, as run() does each time it wakes up. Used
+    * instead of run() when wakeups are scheduled on simulated time.
+    *
+    * @param r
+    *           the source of randomness for this wakeup.
+    * @param slept
+    *           how many milliseconds we slept for.
+    * @return true if we are still on the Field and want to wake up again.
+    */
+   abstract public boolean wake(RandomGenerator r, int slept);
+
+
+   /**
+    * Returns how long this FieldOccupant may stay idle, if its last wakeup
+    * found nothing to do that anything but a change to a Cell next to it could
+    * fix.
+    *
+    * @return the most milliseconds to stay idle for, NO_TIMEOUT to stay idle
+    *         until a Cell next to us changes, or NOT_IDLE to sleep as usual.
+    */
+   public int getIdleTimeout()
+   {
+      return NOT_IDLE;
+   }
+
+
+   /**
+    * Sleeps until this FieldOccupant should next wake up: for a random time as
+    * usual, or, if there's nothing it can do, until a Cell next to it changes
+    * or its idle timeout passes.
+    *
+    * @param r
+    *           the source of randomness for the sleep time.
+    * @return how many milliseconds we slept for.
+    * @throws InterruptedException
+    *            if we are interrupted while we sleep.
+    */
+   protected int sleepUntilWoken(RandomGenerator r) throws InterruptedException
+   {
+      int timeout = getIdleTimeout();
+      int sleepTime;
+      boolean timedOut = false;
+      long start;
+      long deadline;
+      long left;
+
+      if (timeout == NOT_IDLE)
+      {
+         sleepTime = nextSleep(r);
+         Thread.sleep(sleepTime);
+         return sleepTime;
+      }
+
+      start = System.nanoTime();
+      deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+      if (startIdling())
+      {
+         try
+         {
+            // Whoever wakes us stops us idling before they unpark us.
+            while (p_idle && (left = deadline - System.nanoTime()) > 0)
+            {
+               LockSupport.parkNanos(this, left);
+
+               if (Thread.interrupted())
+               {
+                  throw new InterruptedException();
+               }
+            }
+         }
+         finally
+         {
+            // If nobody woke us, we ran out of time.
+            timedOut = stopIdling();
+         }
+      }
+
+      if (timedOut)
+      {
+         return timeout;
+      }
+
+      return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+   }
+
+
+   /**
+    * Forgets about changes to the Cells next to this FieldOccupant. Each
+    * wakeup calls this before looking at the Field, so a change made while
+    * we look keeps us from going idle afterwards.
+    */
+   protected void watchNeighborhood()
+   {
+      p_changed = false;
+   }
+
+
+   /**
+    * Tells this FieldOccupant that a Cell next to it changed, and wakes it
+    * through the current AgentLauncher if it is idle.
+    */
+   void neighborhoodChanged()
+   {
+      // Most changes happen next to FieldOccupants that already know.
+      if (!p_changed)
+      {
+         p_changed = true;
+      }
+
+      if (stopIdling())
+      {
+         getLauncher().wakeUp(this);
+      }
+   }
+
+
+   /**
+    * Marks this FieldOccupant as idle, unless a Cell next to it has changed
+    * since it last looked.
+    *
+    * @return true if we are idle until woken, false if we should wake up
+    *         again straight away.
+    */
+   boolean startIdling()
+   {
+      p_idle = true;
+
+      // Whoever changed a Cell either sees we are idle, or we see the change.
+      return !p_changed || !IDLE.compareAndSet(this, true, false);
+   }
+
+
+   /**
+    * Stops this FieldOccupant being idle. Only one caller gets to stop it.
+    *
+    * @return true if we stopped it, false if it wasn't idle.
+    */
+   boolean stopIdling()
+   {
+      return p_idle && IDLE.compareAndSet(this, true, false);
+   }
+
+
+   /**
+    * Unparks the thread of this FieldOccupant, if it has one.
+    */
+   void unpark()
+   {
+      Thread thread = p_thread;
+
+      if (thread != null)
+      {
+         LockSupport.unpark(thread);
+      }
+   }
+
+
+   /**
+    * Decides what this FieldOccupant would like to do this generation without
+    * changing the Field, and returns the index of the one Cell it needs to
+    * claim to do it. Used when every FieldOccupant proposes against the same
+    * unchanging Field and only then are the winning proposals carried out.
+    *
+    * @param r
+    *           the source of randomness for this generation.
+    * @return the index of the Cell to claim, or NO_PROPOSAL.
+    */
+   abstract public int propose(RandomGenerator r);
+
+
+   /**
+    * Carries out what this FieldOccupant proposed, once it has won the Cell it
+    * claimed. Nobody else changes that Cell until we are done, so it needs no
+    * lock.
+    *
+    * @param target
+    *           the index of the Cell this FieldOccupant claimed.
+    */
+   abstract public void commit(int target);
+
+
+   /**
+    * Does whatever a FieldOccupant does at the end of a generation of
+    * proposals, once every winning proposal has been carried out. Only the
+    * Cell of this FieldOccupant may be changed, and it needs no lock.
+    */
+   public void age()
+   {
+      // Most FieldOccupants don't age.
+   }
+
+
+   /**
+    * Returns the species of this FieldOccupant as kept by the Field.
+    * 
+    * @return Field.FOX or Field.HOUND.
+    */
+   abstract public byte getSpecies();
+
+
+   /**
+    * Returns the id of this FieldOccupant, unique among all FieldOccupants
+    * created by this program.
+    * 
+    * @return The id of this FieldOccupant.
+    */
+   public long getId()
+   {
+      return p_id;
+   }
+
+
+   /**
+    * Returns a new source of randomness for this FieldOccupant to run with,
+    * derived from the seed and our id. FieldOccupants created in the same
+    * order get the same streams, and none of them share one.
+    * 
+    * @return a source of randomness of our own.
+    */
+   protected RandomGenerator newRandom()
+   {
+      return new SplittableRandom(p_seed ^ p_id * SEED_MIX);
+   } // newRandom
+
+
+   /**
+    * Returns the row of this FieldOccupant.
+    * 
+    * @return The row of this FieldOccupant.
+    */
+   public int getRow()
+   {
+      return p_row;
+   }
+
+
+   /**
+    * Sets the row of this FieldOccupant.
+    * 
+    * @param row
+    *           The row to set for this FieldOccupant.
+    */
+   public void setRow(int row)
+   {
+      p_row = row;
+   }
+
+
+   /**
+    * Returns the col of this FieldOccupant.
+    * 
+    * @return the col of this FieldOccupant.
+    */
+   public int getCol()
+   {
+      return p_col;
+   }
+
+
+   /**
+    * Sets the col for this FieldOccupant.
+    * 
+    * @param col
+    *           The col to set of this FieldOccupant.
+    */
+   public void setCol(int col)
+   {
+      p_col = col;
+   }
+
+
+   /**
+    * Returns the Field this FieldOccupant is on.
+    * 
+    * @return The Field this FieldOccupant is on.
+    */
+   public Field getTheField()
+   {
+      return p_theField;
+   }
+
+
+   /**
+    * Sets the Field.
+    * 
+    * @param field
+    *           The Field to set.
+    */
+   public void setTheField(Field theField)
+   {
+      p_theField = theField;
+   }
+
+
+   /**
+    * Returns the NeighborCursor this FieldOccupant uses to look around.
+    * 
+    * @return the NeighborCursor of this FieldOccupant.
+    */
+   protected NeighborCursor getNeighborCursor()
+   {
+      return p_neighborCursor;
+   }
+
+
+   /**
+    * Returns the CellTransaction this FieldOccupant uses to change Cells on an
+    * optimistic Field, creating it the first time it is needed.
+    * 
+    * @return the CellTransaction of this FieldOccupant.
+    */
+   protected CellTransaction getTransaction()
+   {
+      if (p_transaction == null)
+      {
+         p_transaction = new CellTransaction(getTheField());
+      }
+
+      return p_transaction;
+   }
+
+
+   /**
+    * Locks up to three Cells of our Field through its CellLockManager,
+    * recording how long we waited and whether we gave up. Pass the same
+    * index twice to lock just two Cells. The first Cell should be our own.
+    * 
+    * @param first
+    *           the index of a Cell to lock.
+    * @param second
+    *           the index of another Cell to lock.
+    * @param third
+    *           the index of another Cell to lock.
+    * @return true if every Cell is locked, false if they were too busy.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for a lock.
+    */
+   protected boolean acquireCells(int first, int second, int third)
+            throws InterruptedException
+   {
+      AgentMetrics metrics = getTheField().getMetrics();
+      SimulationEvents.CellLockContention contention =
+               new SimulationEvents.CellLockContention();
+      long start = System.nanoTime();
+      boolean locked;
+
+      contention.begin();
+      locked = getTheField().getLockManager().acquire(first, second, third);
+      contention.end();
+      metrics.recordLockWait(System.nanoTime() - start);
+      SimulationEvents.cellLockContention(contention, getId(), getRow(),
+               getCol(), second == third ? 2 : 3, locked);
+
+      if (!locked)
+      {
+         metrics.recordLostRace(AgentMetrics.CELLS_BUSY);
+      }
+
+      return locked;
+   }
+
+
+   /**
+    * Returns the start Phaser.
+    * 
+    * @return The startPhaser.
+    */
+   public Phaser getStartPhaser()
+   {
+      return p_startPhaser;
+   }
+
+
+   /**
+    * Sets the start Phaser.
+    * 
+    * @param startPhaser
+    *           The start Phaser to set.
+    */
+   public void setStartPhaser(Phaser startPhaser)
+   {
+      p_startPhaser = startPhaser;
+   }
+
+
+   /**
+    * Starts the behaviour of this FieldOccupant using the current
+    * AgentLauncher.
+    */
+   public void start()
+   {
+      getLauncher().launch(this);
+   }
+
+
+   /**
+    * Starts the behaviour of many FieldOccupants at once, using the current
+    * AgentLauncher.
+    * 
+    * @param occupants
+    *           the FieldOccupants to start.
+    */
+   public static void startAll(List<? extends FieldOccupant> occupants)
+   {
+      getLauncher().launchAll(occupants);
+   }
+
+
+   /**
+    * Gives FieldOccupants created on several threads at once fresh ids, one
+    * after another in the order listed, so their ids and the streams of
+    * randomness derived from them don't depend on which thread created whom.
+    * Must be called before any of them is started.
+    * 
+    * @param occupants
+    *           the FieldOccupants to number, in the order to number them.
+    */
+   static void renumberAll(List<? extends FieldOccupant> occupants)
+   {
+      long id = p_nextId.getAndAdd(occupants.size());
+
+      for (FieldOccupant occupant : occupants)
+      {
+         occupant.p_id = ++id;
+      }
+   }
+
+
+   /**
+    * Tells this FieldOccupant it has been removed from the Field. If the
+    * FieldOccupant is running on a thread, that thread is interrupted as well.
+    */
+   public void interrupt()
+   {
+      Thread thread = p_thread;
+
+      p_interrupted = true;
+
+      if (thread != null)
+      {
+         thread.interrupt();
+      }
+
+      // Nothing else will ever wake us if we were idle.
+      if (stopIdling())
+      {
+         getLauncher().wakeUp(this);
+      }
+   }
+
+
+   /**
+    * Returns true if this FieldOccupant has been removed from the Field.
+    * 
+    * @return true if this FieldOccupant has been interrupted.
+    */
+   public boolean isInterrupted()
+   {
+      return p_interrupted;
+   }
+
+
+   /**
+    * Sets the thread this FieldOccupant runs on so it can be interrupted.
+    * 
+    * @param thread
+    *           the thread running this FieldOccupant.
+    */
+   public void setThread(Thread thread)
+   {
+      p_thread = thread;
+   }
+
+
+   /**
+    * Returns the AgentLauncher used to start FieldOccupants.
+    * 
+    * @return the AgentLauncher used to start FieldOccupants.
+    */
+   public static AgentLauncher getLauncher()
+   {
+      return p_launcher;
+   }
+
+
+   /**
+    * Sets the AgentLauncher used to start FieldOccupants.
+    * 
+    * @param launcher
+    *           the AgentLauncher to use.
+    */
+   public static void setLauncher(AgentLauncher launcher)
+   {
+      p_launcher = launcher;
+   }
+
+
+   /**
+    * Sets the seed every FieldOccupant's randomness is derived from. Must be
+    * called before any FieldOccupant is created.
+    * 
+    * @param seed
+    *           the seed to derive randomness from.
+    */
+   public static void setSeed(long seed)
+   {
+      p_seed = seed;
+   }
+
+
+   /**
+    * Compares this FieldOccupant to the FieldOccupant passed as an argument.
+    */
+   @Override
+   public int compareTo(FieldOccupant o)
+   {
+      // First check row, if row is equal, then return the comparison of the
+      // col, otherwise return the comparison of the row.
+      return getRow() - o.getRow() == 0 ? getCol() - o.getCol()
+               : getRow() - o.getRow();
+   }
+
+   // What propose returns when there's nothing to claim
+   public static final int       NO_PROPOSAL            = -1;
+
+   // What getIdleTimeout returns when we shouldn't go idle, or have no time
+   // limit
+   public static final int       NOT_IDLE               = -1;
+   public static final int       NO_TIMEOUT             = Integer.MAX_VALUE;
+
+   protected static final int    DEFAULT_SLEEP          = 750;
+   protected static final int    DEFAULT_SLEEP_VARIABLE = 500;
+
+   // Our id, which renumberAll may replace before we start
+   private long                  p_id                   = p_nextId
+            .incrementAndGet();
+   private int                   p_row;
+   private int                   p_col;
+   private Field                 p_theField;
+   private Phaser                p_startPhaser;
+   private final NeighborCursor  p_neighborCursor;
+   private CellTransaction       p_transaction;
+   private volatile Thread       p_thread;
+   private volatile boolean      p_interrupted;
+
+   // Whether a Cell next to us changed since we last looked, and whether we
+   // are idle waiting for one to
+   private volatile boolean      p_changed;
+   private volatile boolean      p_idle;
+
+   // Lets exactly one caller stop us idling
+   private static final VarHandle IDLE;
+
+   static
+   {
+      try
+      {
+         IDLE = MethodHandles.lookup().findVarHandle(FieldOccupant.class,
+                  "p_idle", boolean.class);
+      }
+      catch (ReflectiveOperationException e)
+      {
+         throw new ExceptionInInitializerError(e);
+      }
+   }
+
+   // Class variable for the id of the next FieldOccupant
+   private static final AtomicLong p_nextId = new AtomicLong();
+
+   // Class variable for the seed of every FieldOccupant's randomness, and an
+   // odd constant used to spread ids across seeds
+   private static volatile long    p_seed   = new SplittableRandom()
+            .nextLong();
+   private static final long       SEED_MIX = 0x9E3779B97F4A7C15L;
+
+   // Class variable for how all FieldOccupants are started
+   private static volatile AgentLauncher p_launcher = ThreadLauncher
+            .newPlatformThreadLauncher();
+}
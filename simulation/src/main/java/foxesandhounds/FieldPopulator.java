@@ -0,0 +1,238 @@
+package foxesandhounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Fills an empty Field with Foxes and Hounds at random, in blocks of rows that
+ * are filled in parallel as ForkJoinPool tasks. Each Cell gets a Fox with one
+ * probability or, failing that, a Hound with another.
+ *
+ * Nobody else uses the Field while it is filled and each block writes only
+ * its own Cells, so FieldOccupants go straight into storage without locking a
+ * Cell or flagging the change. They are counted and started all at once when
+ * every block is done. Each block has its own stream of randomness derived
+ * from the seed, and FieldOccupants are numbered in Cell order once every
+ * block is done, so the layout and the ids depend only on the seed and not on
+ * how many workers there are or how they are scheduled.
+ */
+public class FieldPopulator
+{
+   /**
+    * Creates a new FieldPopulator.
+    *
+    * @param theField
+    *           the empty Field to fill.
+    * @param startPhaser
+    *           the start phaser the FieldOccupants wait on.
+    * @param probabilityFox
+    *           the probability of placing a Fox in a Cell.
+    * @param probabilityHound
+    *           the probability of placing a Hound in a Cell without a Fox.
+    * @param seed
+    *           the seed every block's randomness is derived from.
+    */
+   public FieldPopulator(Field theField, Phaser startPhaser,
+            double probabilityFox, double probabilityHound, long seed)
+   {
+      int height = theField.getHeight();
+
+      p_theField = theField;
+      p_startPhaser = startPhaser;
+      p_probabilityFox = probabilityFox;
+      p_probabilityHound = probabilityHound;
+      p_seed = seed;
+      p_blocks = new Block[(height + BLOCK_ROWS - 1) / BLOCK_ROWS];
+
+      for (int i = 0; i < p_blocks.length; i++)
+      {
+         p_blocks[i] = new Block(i, i * BLOCK_ROWS,
+                  Math.min((i + 1) * BLOCK_ROWS, height));
+      }
+   } // FieldPopulator
+
+
+   /**
+    * Fills the Field, then starts every FieldOccupant placed on it with the
+    * current AgentLauncher.
+    *
+    * @param workers
+    *           the parallelism of the ForkJoinPool filling blocks.
+    */
+   public void populate(int workers)
+   {
+      ForkJoinPool pool = new ForkJoinPool(workers);
+      List<FieldOccupant> placed;
+      long foxes = 0;
+      long hounds = 0;
+
+      try
+      {
+         pool.invoke(new Fill(0, p_blocks.length));
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+
+      for (Block block : p_blocks)
+      {
+         foxes += block.p_foxes;
+         hounds += block.p_hounds;
+      }
+
+      placed = new ArrayList<>((int) (foxes + hounds));
+
+      for (Block block : p_blocks)
+      {
+         placed.addAll(block.p_placed);
+         block.p_placed.clear();
+      }
+
+      // Blocks created their FieldOccupants in whatever order the workers
+      // got to them; number them in Cell order instead.
+      FieldOccupant.renumberAll(placed);
+      p_theField.finishPlacing(foxes, hounds);
+      FieldOccupant.startAll(placed);
+   } // populate
+
+
+   /**
+    * Fills a range of blocks, splitting the range in half until each task has
+    * a single block.
+    */
+   private class Fill extends RecursiveAction
+   {
+      /**
+       * Creates a new Fill.
+       *
+       * @param firstBlock
+       *           the index of the first block to fill.
+       * @param endBlock
+       *           one past the index of the last block to fill.
+       */
+      Fill(int firstBlock, int endBlock)
+      {
+         p_firstBlock = firstBlock;
+         p_endBlock = endBlock;
+      }
+
+
+      /**
+       * Fills our block, or splits our blocks between two new tasks.
+       */
+      @Override
+      protected void compute()
+      {
+         int middle;
+
+         if (p_endBlock - p_firstBlock > 1)
+         {
+            middle = (p_firstBlock + p_endBlock) >>> 1;
+            invokeAll(new Fill(p_firstBlock, middle),
+                     new Fill(middle, p_endBlock));
+         }
+         else
+         {
+            p_blocks[p_firstBlock].fill();
+         }
+      } // compute
+
+      private static final long serialVersionUID = 1L;
+
+      private final int         p_firstBlock;
+      private final int         p_endBlock;
+   }
+
+
+   /**
+    * A block of whole rows of the Field, filled by one task.
+    */
+   private class Block
+   {
+      /**
+       * Creates a new Block.
+       *
+       * @param index
+       *           the index of this Block.
+       * @param firstRow
+       *           the first row (y-coordinate) in this Block.
+       * @param endRow
+       *           one past the last row (y-coordinate) in this Block.
+       */
+      Block(int index, int firstRow, int endRow)
+      {
+         p_index = index;
+         p_firstRow = firstRow;
+         p_endRow = endRow;
+      }
+
+
+      /**
+       * Places a Fox, a Hound or nothing in each Cell of this Block,
+       * remembering what we placed.
+       */
+      private void fill()
+      {
+         int width = p_theField.getWidth();
+         FieldOccupant occupant;
+
+         // Every Block gets its own stream of randomness so the layout
+         // doesn't depend on which worker filled us.
+         SplittableRandom r = new SplittableRandom(
+                  p_seed ^ p_index * BLOCK_MIX);
+
+         for (int y = p_firstRow; y < p_endRow; y++)
+         {
+            for (int x = 0; x < width; x++)
+            {
+               // Note that if a Fox is placed, a Hound never is.
+               if (r.nextFloat() <= p_probabilityFox)
+               {
+                  occupant = new Fox(x, y, p_theField, p_startPhaser);
+                  p_foxes++;
+               }
+               else if (r.nextFloat() <= p_probabilityHound)
+               {
+                  occupant = new Hound(x, y, p_theField, p_startPhaser);
+                  p_hounds++;
+               }
+               else
+               {
+                  continue;
+               }
+
+               p_theField.placeAt(p_theField.indexOf(x, y), occupant);
+               p_placed.add(occupant);
+            }
+         }
+      } // fill
+
+      private final int                 p_index;
+      private final int                 p_firstRow;
+      private final int                 p_endRow;
+      private final List<FieldOccupant> p_placed = new ArrayList<>();
+      private long                      p_foxes;
+      private long                      p_hounds;
+   }
+
+   // Rows per block; enough Cells that a task is worth forking on all but
+   // the narrowest Fields
+   private static final int    BLOCK_ROWS = 16;
+
+   // Odd constant used to spread blocks across seeds, unlike the one
+   // FieldOccupant spreads ids with
+   private static final long   BLOCK_MIX  = 0xBF58476D1CE4E5B9L;
+
+   private final Field         p_theField;
+   private final Phaser        p_startPhaser;
+   private final double        p_probabilityFox;
+   private final double        p_probabilityHound;
+   private final long          p_seed;
+   private final Block[]       p_blocks;
+}
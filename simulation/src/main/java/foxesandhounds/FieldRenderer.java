@@ -0,0 +1,13 @@
+package foxesandhounds;
+
+
+/**
+ * A FieldRenderer draws frames showing the state of a Field.
+ */
+public interface FieldRenderer
+{
+   /**
+    * Draws the current state of the Field.
+    */
+   void drawFrame();
+}
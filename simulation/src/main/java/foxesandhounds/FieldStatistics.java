@@ -0,0 +1,335 @@
+package foxesandhounds;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counts what happens on a Field: Foxes and Hounds being born, Hounds eating
+ * Foxes and Hounds starving, and FieldOccupants dying. It also keeps how many
+ * Foxes and Hounds are alive, updated by the Field as Cells change so nobody
+ * has to scan the Field to find out. Events are recorded from many threads at
+ * once, so every counter is a LongAdder that threads add to without
+ * contending.
+ */
+public class FieldStatistics
+{
+   /**
+    * Records that a FieldOccupant was born.
+    */
+   public void recordBirth()
+   {
+      p_births.increment();
+   } // recordBirth
+
+
+   /**
+    * Records that a Hound ate a Fox.
+    */
+   public void recordEat()
+   {
+      p_eats.increment();
+   } // recordEat
+
+
+   /**
+    * Records that a Hound starved.
+    */
+   public void recordStarvation()
+   {
+      p_starvations.increment();
+   } // recordStarvation
+
+
+   /**
+    * Records that a Cell of the Field changed from one FieldOccupant to
+    * another. The Field calls this for every change while it owns the Cell.
+    * A FieldOccupant that is replaced, by another or by nothing, has died.
+    *
+    * @param previous
+    *           the FieldOccupant that was in the Cell, or null.
+    * @param occupant
+    *           the FieldOccupant now in the Cell, or null.
+    */
+   void recordChange(FieldOccupant previous, FieldOccupant occupant)
+   {
+      if (previous == occupant)
+      {
+         return;
+      }
+
+      if (previous != null)
+      {
+         getPopulation(previous.getSpecies()).decrement();
+         p_deaths.increment();
+      }
+
+      if (occupant != null)
+      {
+         getPopulation(occupant.getSpecies()).increment();
+      }
+   } // recordChange
+
+
+   /**
+    * Records a whole batch of what happens on a Field at once, for engines
+    * that don't keep a FieldOccupant in every occupied Cell.
+    *
+    * @param foxesBorn
+    *           the number of Foxes born.
+    * @param houndsBorn
+    *           the number of Hounds born.
+    * @param foxesEaten
+    *           the number of Foxes eaten.
+    * @param houndsStarved
+    *           the number of Hounds that starved.
+    */
+   void recordBatch(long foxesBorn, long houndsBorn, long foxesEaten,
+            long houndsStarved)
+   {
+      p_foxes.add(foxesBorn - foxesEaten);
+      p_hounds.add(houndsBorn - houndsStarved);
+      p_births.add(foxesBorn + houndsBorn);
+      p_eats.add(foxesEaten);
+      p_starvations.add(houndsStarved);
+      p_deaths.add(foxesEaten + houndsStarved);
+   } // recordBatch
+
+
+   /**
+    * Records Foxes and Hounds placed on a Field all at once, before it starts
+    * running. They weren't born, so only the populations change.
+    *
+    * @param foxes
+    *           the number of Foxes placed.
+    * @param hounds
+    *           the number of Hounds placed.
+    */
+   void recordPopulation(long foxes, long hounds)
+   {
+      p_foxes.add(foxes);
+      p_hounds.add(hounds);
+   } // recordPopulation
+
+
+   /**
+    * Returns the number of Foxes alive on the Field.
+    *
+    * @return the number of Foxes.
+    */
+   public long getFoxes()
+   {
+      return p_foxes.sum();
+   } // getFoxes
+
+
+   /**
+    * Returns the number of Hounds alive on the Field.
+    *
+    * @return the number of Hounds.
+    */
+   public long getHounds()
+   {
+      return p_hounds.sum();
+   } // getHounds
+
+
+   /**
+    * Returns the number of FieldOccupants that have died so far.
+    *
+    * @return the number of deaths.
+    */
+   public long getDeaths()
+   {
+      return p_deaths.sum();
+   } // getDeaths
+
+
+   /**
+    * Returns the number of FieldOccupants born so far.
+    *
+    * @return the number of births.
+    */
+   public long getBirths()
+   {
+      return p_births.sum();
+   } // getBirths
+
+
+   /**
+    * Returns the number of Foxes eaten so far.
+    *
+    * @return the number of Foxes eaten.
+    */
+   public long getEats()
+   {
+      return p_eats.sum();
+   } // getEats
+
+
+   /**
+    * Returns the number of Hounds that have starved so far.
+    *
+    * @return the number of starvations.
+    */
+   public long getStarvations()
+   {
+      return p_starvations.sum();
+   } // getStarvations
+
+
+   /**
+    * Returns all of our counts at once. Each count is read separately while
+    * FieldOccupants carry on, so the counts may be a few events apart, but
+    * reading them never blocks anybody.
+    *
+    * @return a Snapshot of our counts.
+    */
+   public Snapshot snapshot()
+   {
+      return new Snapshot(getFoxes(), getHounds(), getBirths(), getDeaths(),
+               getEats(), getStarvations());
+   } // snapshot
+
+
+   /**
+    * Returns the counter for the population of the species given.
+    *
+    * @param species
+    *           Field.FOX or Field.HOUND.
+    * @return the population counter of that species.
+    */
+   private LongAdder getPopulation(byte species)
+   {
+      return species == Field.FOX ? p_foxes : p_hounds;
+   } // getPopulation
+
+
+   /**
+    * The counts of a FieldStatistics at one moment.
+    */
+   public static final class Snapshot
+   {
+      /**
+       * Creates a new Snapshot.
+       *
+       * @param foxes
+       *           the number of Foxes alive.
+       * @param hounds
+       *           the number of Hounds alive.
+       * @param births
+       *           the number of births so far.
+       * @param deaths
+       *           the number of deaths so far.
+       * @param eats
+       *           the number of Foxes eaten so far.
+       * @param starvations
+       *           the number of Hounds starved so far.
+       */
+      Snapshot(long foxes, long hounds, long births, long deaths, long eats,
+               long starvations)
+      {
+         p_foxes = foxes;
+         p_hounds = hounds;
+         p_births = births;
+         p_deaths = deaths;
+         p_eats = eats;
+         p_starvations = starvations;
+      } // Snapshot
+
+
+      /**
+       * Returns the number of Foxes alive.
+       *
+       * @return the number of Foxes.
+       */
+      public long getFoxes()
+      {
+         return p_foxes;
+      } // getFoxes
+
+
+      /**
+       * Returns the number of Hounds alive.
+       *
+       * @return the number of Hounds.
+       */
+      public long getHounds()
+      {
+         return p_hounds;
+      } // getHounds
+
+
+      /**
+       * Returns the number of births so far.
+       *
+       * @return the number of births.
+       */
+      public long getBirths()
+      {
+         return p_births;
+      } // getBirths
+
+
+      /**
+       * Returns the number of deaths so far.
+       *
+       * @return the number of deaths.
+       */
+      public long getDeaths()
+      {
+         return p_deaths;
+      } // getDeaths
+
+
+      /**
+       * Returns the number of Foxes eaten so far.
+       *
+       * @return the number of Foxes eaten.
+       */
+      public long getEats()
+      {
+         return p_eats;
+      } // getEats
+
+
+      /**
+       * Returns the number of Hounds starved so far.
+       *
+       * @return the number of starvations.
+       */
+      public long getStarvations()
+      {
+         return p_starvations;
+      } // getStarvations
+
+
+      /**
+       * Returns the counts on one line.
+       *
+       * @return the counts.
+       */
+      @Override
+      public String toString()
+      {
+         return "foxes=" + p_foxes + " hounds=" + p_hounds + " births="
+                  + p_births + " deaths=" + p_deaths + " eats=" + p_eats
+                  + " starvations=" + p_starvations;
+      } // toString
+
+      private final long p_foxes;
+      private final long p_hounds;
+      private final long p_births;
+      private final long p_deaths;
+      private final long p_eats;
+      private final long p_starvations;
+   }
+
+   // How many of each species are alive
+   private final LongAdder p_foxes       = new LongAdder();
+   private final LongAdder p_hounds      = new LongAdder();
+
+   private final LongAdder p_births      = new LongAdder();
+   private final LongAdder p_deaths      = new LongAdder();
+   private final LongAdder p_eats        = new LongAdder();
+   private final LongAdder p_starvations = new LongAdder();
+}
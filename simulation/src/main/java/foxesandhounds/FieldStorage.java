@@ -0,0 +1,188 @@
+package foxesandhounds;
+
+
+/**
+ * Keeps the state of every Cell of a Field: its occupant, along with the
+ * species and hunger of that occupant as primitives so they can be read
+ * without touching the FieldOccupant itself. A Cell is found by its index,
+ * y * width + x, whatever the storage does with it.
+ *
+ * Every Cell is written with release and read with acquire semantics, so
+ * readers never need a lock to see what the last writer of a Cell wrote.
+ * Writers of the same Cell must take turns.
+ *
+ * Each Cell also counts the Foxes and Hounds in the 8 Cells around it, packed
+ * into one small number. Those counts are kept by whoever changes the Cells
+ * around it, so they are changed atomically.
+ */
+public interface FieldStorage
+{
+   /**
+    * Returns the width of the stored field.
+    *
+    * @return the width of the stored field.
+    */
+   int getWidth();
+
+
+   /**
+    * Returns the height of the stored field.
+    *
+    * @return the height of the stored field.
+    */
+   int getHeight();
+
+
+   /**
+    * Returns the index of the Cell at the given, already normalized,
+    * coordinates.
+    *
+    * @param x
+    *           the x-coordinate of the Cell.
+    * @param y
+    *           the y-coordinate of the Cell.
+    * @return the index of the Cell.
+    */
+   default int indexOf(int x, int y)
+   {
+      return y * getWidth() + x;
+   } // indexOf
+
+
+   /**
+    * Returns the FieldOccupant of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the FieldOccupant of the Cell, or null if it is empty.
+    */
+   FieldOccupant getOccupant(int index);
+
+
+   /**
+    * Returns the species of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return Field.EMPTY, Field.FOX or Field.HOUND.
+    */
+   byte getSpecies(int index);
+
+
+   /**
+    * Returns the hunger (fed status) of the Cell at the given index. Only
+    * Cells holding a Hound have a hunger other than 0.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the hunger of the Cell.
+    */
+   int getHunger(int index);
+
+
+   /**
+    * Sets the FieldOccupant of the Cell at the given index, along with its
+    * species and hunger.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param occupant
+    *           the new FieldOccupant, or null to empty the Cell.
+    */
+   void setOccupant(int index, FieldOccupant occupant);
+
+
+   /**
+    * Sets the hunger of the Cell at the given index. Only a Cell holding a
+    * Hound keeps its hunger.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param hunger
+    *           the hunger of the Cell.
+    */
+   void setHunger(int index, int hunger);
+
+
+   /**
+    * Returns how many Foxes and Hounds are in the 8 Cells around the Cell at
+    * the given index, packed as in FOX_NEIGHBOR and HOUND_NEIGHBOR.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the packed neighbor counts of the Cell.
+    */
+   int getNeighbors(int index);
+
+
+   /**
+    * Counts one more or one less Fox or Hound next to the Cell at the given
+    * index. Any number of threads may count the same Cell at once.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param delta
+    *           plus or minus FOX_NEIGHBOR or HOUND_NEIGHBOR.
+    */
+   void addNeighbors(int index, int delta);
+
+
+   /**
+    * Returns the number of Foxes in packed neighbor counts.
+    *
+    * @param neighbors
+    *           the packed neighbor counts of a Cell.
+    * @return the number of Foxes next to the Cell.
+    */
+   static int countFoxes(int neighbors)
+   {
+      return neighbors & NEIGHBOR_MASK;
+   } // countFoxes
+
+
+   /**
+    * Returns the number of Hounds in packed neighbor counts.
+    *
+    * @param neighbors
+    *           the packed neighbor counts of a Cell.
+    * @return the number of Hounds next to the Cell.
+    */
+   static int countHounds(int neighbors)
+   {
+      return neighbors >>> NEIGHBOR_BITS & NEIGHBOR_MASK;
+   } // countHounds
+
+
+   /**
+    * Returns the number of Cells on a field of the given size, making sure
+    * every Cell can be given an int index.
+    *
+    * @param width
+    *           of the field.
+    * @param height
+    *           of the field.
+    * @return the number of Cells.
+    * @throws IllegalArgumentException
+    *            if the field is empty or has too many Cells.
+    */
+   static int countCells(int width, int height)
+   {
+      if (width <= 0 || height <= 0
+               || (long) width * height > Integer.MAX_VALUE)
+      {
+         throw new IllegalArgumentException("A field can't be " + width
+                  + " x " + height + ".");
+      }
+
+      return width * height;
+   } // countCells
+
+   // A Cell has at most 8 neighbors, so each count fits in NEIGHBOR_BITS bits
+   // and both fit in a byte
+   int NEIGHBOR_BITS  = 4;
+   int NEIGHBOR_MASK  = (1 << NEIGHBOR_BITS) - 1;
+
+   // What one Fox or one Hound adds to the packed neighbor counts of a Cell
+   int FOX_NEIGHBOR   = 1;
+   int HOUND_NEIGHBOR = 1 << NEIGHBOR_BITS;
+}
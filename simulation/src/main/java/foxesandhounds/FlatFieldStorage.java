@@ -0,0 +1,204 @@
+package foxesandhounds;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+
+/**
+ * Keeps the state of every Cell of a Field in flat, row-major arrays indexed
+ * by y * width + x rather than in one Cell object per location. Every Cell
+ * costs the same whether anybody is in it or not, and nothing is ever
+ * allocated once the Field exists. The neighbor counts of a Cell take one
+ * byte.
+ */
+public class FlatFieldStorage implements FieldStorage
+{
+   /**
+    * Creates empty storage for a Field of the given width and height.
+    *
+    * @param width
+    *           of the field.
+    * @param height
+    *           of the field.
+    */
+   public FlatFieldStorage(int width, int height)
+   {
+      int cells = FieldStorage.countCells(width, height);
+
+      p_width = width;
+      p_height = height;
+      p_occupants = new FieldOccupant[cells];
+      p_species = new byte[cells];
+      p_hunger = new int[cells];
+      p_neighbors = new byte[cells];
+   } // FlatFieldStorage
+
+
+   /**
+    * Returns the width of the stored field.
+    *
+    * @return the width of the stored field.
+    */
+   @Override
+   public int getWidth()
+   {
+      return p_width;
+   } // getWidth
+
+
+   /**
+    * Returns the height of the stored field.
+    *
+    * @return the height of the stored field.
+    */
+   @Override
+   public int getHeight()
+   {
+      return p_height;
+   } // getHeight
+
+
+   /**
+    * Returns the index of the Cell at the given, already normalized,
+    * coordinates.
+    *
+    * @param x
+    *           the x-coordinate of the Cell.
+    * @param y
+    *           the y-coordinate of the Cell.
+    * @return the index of the Cell.
+    */
+   @Override
+   public int indexOf(int x, int y)
+   {
+      return y * p_width + x;
+   } // indexOf
+
+
+   /**
+    * Returns the FieldOccupant of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the FieldOccupant of the Cell, or null if it is empty.
+    */
+   @Override
+   public FieldOccupant getOccupant(int index)
+   {
+      return (FieldOccupant) OCCUPANTS.getAcquire(p_occupants, index);
+   } // getOccupant
+
+
+   /**
+    * Returns the species of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return Field.EMPTY, Field.FOX or Field.HOUND.
+    */
+   @Override
+   public byte getSpecies(int index)
+   {
+      return (byte) SPECIES.getAcquire(p_species, index);
+   } // getSpecies
+
+
+   /**
+    * Returns the hunger (fed status) of the Cell at the given index. Only
+    * Cells holding a Hound have a hunger other than 0.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the hunger of the Cell.
+    */
+   @Override
+   public int getHunger(int index)
+   {
+      return (int) HUNGER.getAcquire(p_hunger, index);
+   } // getHunger
+
+
+   /**
+    * Sets the FieldOccupant of the Cell at the given index, along with its
+    * species and hunger.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param occupant
+    *           the new FieldOccupant, or null to empty the Cell.
+    */
+   @Override
+   public void setOccupant(int index, FieldOccupant occupant)
+   {
+      HUNGER.setRelease(p_hunger, index, occupant instanceof Hound
+               ? ((Hound) occupant).getFedStatus()
+               : 0);
+      SPECIES.setRelease(p_species, index,
+               occupant == null ? Field.EMPTY : occupant.getSpecies());
+      OCCUPANTS.setRelease(p_occupants, index, occupant);
+   } // setOccupant
+
+
+   /**
+    * Sets the hunger of the Cell at the given index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param hunger
+    *           the hunger of the Cell.
+    */
+   @Override
+   public void setHunger(int index, int hunger)
+   {
+      HUNGER.setRelease(p_hunger, index, hunger);
+   } // setHunger
+
+
+   /**
+    * Returns how many Foxes and Hounds are in the 8 Cells around the Cell at
+    * the given index, packed as in FOX_NEIGHBOR and HOUND_NEIGHBOR.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @return the packed neighbor counts of the Cell.
+    */
+   @Override
+   public int getNeighbors(int index)
+   {
+      return (byte) NEIGHBORS.getAcquire(p_neighbors, index) & 0xFF;
+   } // getNeighbors
+
+
+   /**
+    * Counts one more or one less Fox or Hound next to the Cell at the given
+    * index.
+    *
+    * @param index
+    *           the index of the Cell.
+    * @param delta
+    *           plus or minus FOX_NEIGHBOR or HOUND_NEIGHBOR.
+    */
+   @Override
+   public void addNeighbors(int index, int delta)
+   {
+      // Wrapping byte arithmetic subtracts as well as it adds.
+      NEIGHBORS.getAndAdd(p_neighbors, index, (byte) delta);
+   } // addNeighbors
+
+   // Acquire/release access to the elements of our arrays
+   private static final VarHandle OCCUPANTS = MethodHandles
+            .arrayElementVarHandle(FieldOccupant[].class);
+   private static final VarHandle SPECIES   = MethodHandles
+            .arrayElementVarHandle(byte[].class);
+   private static final VarHandle HUNGER    = MethodHandles
+            .arrayElementVarHandle(int[].class);
+   private static final VarHandle NEIGHBORS = MethodHandles
+            .arrayElementVarHandle(byte[].class);
+
+   private final int             p_width;
+   private final int             p_height;
+   private final FieldOccupant[] p_occupants;
+   private final byte[]          p_species;
+   private final int[]           p_hunger;
+   private final byte[]          p_neighbors;
+}
@@ -0,0 +1,469 @@
+package foxesandhounds;
+
+import java.awt.Color;
+import java.util.concurrent.Phaser;
+import java.util.random.RandomGenerator;
+
+
+/**
+ * Foxes can display themselves
+ */
+public class Fox extends FieldOccupant
+{
+   /**
+    * Creates a new Fox.
+    * 
+    * @param row
+    *           the row the Fox is located at.
+    * @param col
+    *           the col the Fox is located at.
+    * @param theField
+    *           the Field the Fox is on.
+    * @param startPhaser
+    *           the start phaser to wait on.
+    */
+   public Fox(int row, int col, Field theField, Phaser startPhaser)
+   {
+      super(row, col, theField, startPhaser);
+   }
+
+
+   /**
+    * @return the Color to use for a Cell occupied by a Fox
+    */
+   @Override
+   public Color getDisplayColor()
+   {
+      return DISPLAY_COLOR;
+   } // getDisplayColor
+
+
+   /**
+    * Returns the species of a Fox.
+    * 
+    * @return Field.FOX.
+    */
+   @Override
+   public byte getSpecies()
+   {
+      return Field.FOX;
+   } // getSpecies
+
+
+   /**
+    * Returns the String representing a Fox.
+    * 
+    * @return the String representing a Fox.
+    */
+   @Override
+   public String toString()
+   {
+      return "F";
+   }
+
+
+   /**
+    * Allows a Foxes to reproduce with other Foxes.
+    */
+   @Override
+   public void run()
+   {
+      RandomGenerator r = newRandom();
+      int sleepTime;
+
+      try
+      {
+         // If we haven't started, join and wait for the start signal...
+         getStartPhaser().awaitAdvance(getStartPhaser().getPhase());
+
+         // Foxes never die, so keep going until we get eaten.
+         do
+         {
+            // Sleep for a fixed time plus a random time, or until there's
+            // room next to us if there wasn't.
+            sleepTime = sleepUntilWoken(r);
+         }
+         while (wake(r, sleepTime)); // While we are still on the Field
+      }
+      catch (InterruptedException e)
+      {
+         // We died.
+      }
+   } // run
+
+
+   /**
+    * Does Fox things once we wake up, unless we were eaten in our sleep.
+    * 
+    * @param r
+    *           the source of randomness to choose Cells with.
+    * @param slept
+    *           how many milliseconds we slept for.
+    * @return true if we are still on the Field.
+    */
+   @Override
+   public boolean wake(RandomGenerator r, int slept)
+   {
+      if (isInterrupted())
+      {
+         return false;
+      }
+
+      watchNeighborhood();
+
+      try
+      {
+         act(r);
+      }
+      catch (InterruptedException e)
+      {
+         // We were eaten while waiting for our Cells.
+         return false;
+      }
+
+      return !isInterrupted();
+   } // wake
+
+
+   /**
+    * Lets a Fox that found no empty Cell next to it stay idle until one of
+    * those Cells changes. Foxes never starve, so there's no time limit.
+    * 
+    * @return NO_TIMEOUT if we are surrounded, NOT_IDLE otherwise.
+    */
+   @Override
+   public int getIdleTimeout()
+   {
+      return p_surrounded ? NO_TIMEOUT : NOT_IDLE;
+   } // getIdleTimeout
+
+
+   /**
+    * Foxes only try to reproduce each generation; they never starve.
+    * 
+    * @param r
+    *           the source of randomness for this generation.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting to lock our Cells.
+    */
+   @Override
+   public void step(RandomGenerator r) throws InterruptedException
+   {
+      act(r);
+   } // step
+
+
+   /**
+    * Looks for an empty neighboring Cell that has another Fox next to it and,
+    * if there is one, gives birth to a new Fox in that Cell.
+    * 
+    * @param r
+    *           the source of randomness to choose Cells with.
+    * @throws InterruptedException
+    *            if we are eaten while waiting to lock our Cells.
+    */
+   private void act(RandomGenerator r) throws InterruptedException
+   {
+      long woke = System.nanoTime();
+
+      if (propose(r) != NO_PROPOSAL && giveBirth(p_foxholeRow, p_foxholeCol))
+      {
+         long latency = System.nanoTime() - woke;
+
+         getTheField().getMetrics().recordAction(latency);
+         SimulationEvents.foxBirth(this, p_foxholeRow, p_foxholeCol, latency);
+      }
+   } // act
+
+
+   /**
+    * Picks an empty neighboring Cell at random and checks that another Fox is
+    * next to it to mate with. Nothing on the Field is changed.
+    * 
+    * @param r
+    *           the source of randomness to choose Cells with.
+    * @return the index of the foxhole, or NO_PROPOSAL if we can't give birth.
+    */
+   @Override
+   public int propose(RandomGenerator r)
+   {
+      NeighborCursor neighbors = getNeighborCursor();
+      int emptyCells = 0;
+
+      // Iterate over the neighbors and pick one of the empty Cells nearby at
+      // random, giving each an equal chance as we count them.
+      neighbors.reset(getRow(), getCol());
+
+      while (neighbors.next())
+      {
+         if (neighbors.getSpecies() == Field.EMPTY
+                  && r.nextInt(++emptyCells) == 0)
+         {
+            p_foxholeRow = neighbors.getX();
+            p_foxholeCol = neighbors.getY();
+         }
+      } // while
+
+      // If a Fox finds a neighboring empty Cell that has another
+      // Fox as a neighbor and has at most one Hound as a neighbor
+      // (note this could be a sleeping neighbor of the Fox itself!)
+      // then a new Fox is born in that Cell.
+      p_surrounded = emptyCells == 0;
+
+      if (p_surrounded)
+      {
+         return NO_PROPOSAL;
+      }
+
+      // The Field counts the Foxes around the foxhole for us, and we are one
+      // of them.
+      return hasMate(p_foxholeRow, p_foxholeCol)
+               ? getTheField().indexOf(p_foxholeRow, p_foxholeCol)
+               : NO_PROPOSAL;
+   } // propose
+
+
+   /**
+    * Gives birth to a new Fox in the foxhole we claimed. Our mate and the
+    * foxhole were checked when we proposed and nobody else may fill the
+    * foxhole, so there's nothing left to check.
+    * 
+    * @param target
+    *           the index of the foxhole.
+    */
+   @Override
+   public void commit(int target)
+   {
+      Field theField = getTheField();
+      Fox newborn = new Fox(p_foxholeRow, p_foxholeCol, theField,
+               getStartPhaser());
+
+      theField.storeAt(target, newborn);
+      theField.getStatistics().recordBirth();
+      SimulationEvents.foxBirth(this, p_foxholeRow, p_foxholeCol, 0);
+      newborn.start();
+   } // commit
+
+
+   /**
+    * Gives birth to a new Fox in the foxhole, as long as we and a mate next to
+    * it are both still alive and the foxhole is still empty once we own the
+    * Cells.
+    * 
+    * @param foxholeRow
+    *           the row of the empty Cell to give birth in.
+    * @param foxholeCol
+    *           the col of the empty Cell to give birth in.
+    * @return true if a new Fox was born.
+    * @throws InterruptedException
+    *            if we are eaten while waiting to lock our Cells.
+    */
+   private boolean giveBirth(int foxholeRow, int foxholeCol)
+            throws InterruptedException
+   {
+      Field theField = getTheField();
+      CellLockManager locks = theField.getLockManager();
+      CellTransaction transaction;
+      Fox newborn = null;
+      int self = theField.indexOf(getRow(), getCol());
+      int foxhole = theField.indexOf(foxholeRow, foxholeCol);
+      int mate;
+      int attempt;
+
+      // Our mate has to be alive when the Fox is born, so we need its Cell
+      // as well as the Field's count of Foxes around the foxhole.
+      if (!findMate(foxholeRow, foxholeCol))
+      {
+         theField.getMetrics().recordLostRace(AgentMetrics.MATE_GONE);
+         return false;
+      }
+
+      mate = theField.indexOf(p_mateRow, p_mateCol);
+
+      // On an optimistic Field, note the versions of our Cells, check they
+      // still hold what we need and then try to claim them all at once. If
+      // somebody got there first, look again.
+      if (theField.isOptimistic())
+      {
+         transaction = getTransaction();
+
+         for (attempt = 0; attempt < CellTransaction.MAX_ATTEMPTS
+                  && newborn == null; attempt++)
+         {
+            transaction.begin();
+
+            if (!transaction.read(self) || !transaction.read(mate)
+                     || !transaction.read(foxhole))
+            {
+               continue;
+            }
+
+            // If we've been eaten, our mate has, or the foxhole has been
+            // filled there's nothing left to do.
+            if (!canGiveBirth(p_mateRow, p_mateCol, foxholeRow, foxholeCol))
+            {
+               theField.getMetrics().recordAttempts(attempt + 1);
+               return false;
+            }
+
+            if (transaction.commit())
+            {
+               newborn = new Fox(foxholeRow, foxholeCol, theField,
+                        getStartPhaser());
+               transaction.write(foxhole, newborn);
+               transaction.end();
+            }
+         } // for
+
+         theField.getMetrics().recordAttempts(attempt);
+
+         if (newborn != null)
+         {
+            theField.getStatistics().recordBirth();
+            newborn.start();
+            return true;
+         }
+
+         theField.getMetrics().recordLostRace(AgentMetrics.CELLS_BUSY);
+      }
+
+      // Otherwise lock our Cell, our mate's Cell and the foxhole. If they are
+      // too busy we just try again next time.
+      else if (acquireCells(self, mate, foxhole))
+      {
+         try
+         {
+            // Make sure we are still alive...
+            // Then make sure our mate is still alive...
+            // Finally make sure we are going to birth
+            // to an empty Cell still.
+            if (canGiveBirth(p_mateRow, p_mateCol, foxholeRow, foxholeCol))
+            {
+               theField.setCellAt(foxholeRow, foxholeCol,
+                        new Fox(foxholeRow, foxholeCol, theField,
+                                 getStartPhaser()))
+                        .start();
+               theField.getStatistics().recordBirth();
+               return true;
+            }
+         }
+         finally
+         {
+            locks.release(self, mate, foxhole);
+         }
+      } // If we locked our Cells
+
+      return false;
+   } // giveBirth
+
+
+   /**
+    * Checks that we are still on the Field, our mate is still alive and the
+    * foxhole is still empty, and records which race we lost if not.
+    * 
+    * @param mateRow
+    *           the row of the Fox we mate with.
+    * @param mateCol
+    *           the col of the Fox we mate with.
+    * @param foxholeRow
+    *           the row of the empty Cell to give birth in.
+    * @param foxholeCol
+    *           the col of the empty Cell to give birth in.
+    * @return true if we can still give birth.
+    */
+   private boolean canGiveBirth(int mateRow, int mateCol, int foxholeRow,
+            int foxholeCol)
+   {
+      Field theField = getTheField();
+      int lostRace;
+
+      if (isInterrupted()
+               || theField.getOccupantAt(getRow(), getCol()) != this)
+      {
+         lostRace = AgentMetrics.EATEN;
+      }
+      else if (!(theField.getOccupantAt(mateRow, mateCol) instanceof Fox))
+      {
+         lostRace = AgentMetrics.MATE_GONE;
+      }
+      else if (theField.isOccupied(foxholeRow, foxholeCol))
+      {
+         lostRace = AgentMetrics.FOXHOLE_FILLED;
+      }
+      else
+      {
+         return true;
+      }
+
+      theField.getMetrics().recordLostRace(lostRace);
+      return false;
+   } // canGiveBirth
+
+
+   /**
+    * Returns true if a Fox besides us is next to the foxhole. We are next to
+    * it ourselves, so it needs at least two.
+    * 
+    * @param foxholeRow
+    *           the row of the empty Cell to give birth in.
+    * @param foxholeCol
+    *           the col of the empty Cell to give birth in.
+    * @return true if we have a mate for the foxhole.
+    */
+   private boolean hasMate(int foxholeRow, int foxholeCol)
+   {
+      return getTheField().getFoxNeighborsAt(foxholeRow, foxholeCol) > 1;
+   } // hasMate
+
+
+   /**
+    * Finds a Fox besides us next to the foxhole to mate with and remembers
+    * where it is. The Field's count of Foxes around the foxhole saves us
+    * looking when there is none.
+    * 
+    * @param foxholeRow
+    *           the row of the empty Cell to give birth in.
+    * @param foxholeCol
+    *           the col of the empty Cell to give birth in.
+    * @return true if we found a mate.
+    */
+   private boolean findMate(int foxholeRow, int foxholeCol)
+   {
+      NeighborCursor neighbors;
+      FieldOccupant occupant;
+
+      if (!hasMate(foxholeRow, foxholeCol))
+      {
+         return false;
+      }
+
+      neighbors = getNeighborCursor();
+      neighbors.reset(foxholeRow, foxholeCol);
+
+      while (neighbors.next())
+      {
+         occupant = neighbors.getOccupant();
+
+         if (occupant instanceof Fox && occupant != this)
+         {
+            p_mateRow = neighbors.getX();
+            p_mateCol = neighbors.getY();
+            return true;
+         }
+      } // while
+
+      return false;
+   } // findMate
+
+   // The Color every Fox is drawn in
+   public static final Color DISPLAY_COLOR = Color.GREEN;
+
+   // Where we last proposed to give birth, and with whom
+   private int               p_foxholeRow;
+   private int               p_foxholeCol;
+   private int               p_mateRow;
+   private int               p_mateCol;
+
+   // Whether there was no empty Cell next to us when we last looked
+   private boolean           p_surrounded;
+}
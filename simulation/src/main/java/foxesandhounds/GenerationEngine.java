@@ -0,0 +1,41 @@
+package foxesandhounds;
+
+
+/**
+ * A GenerationEngine advances a Field in discrete generations rather than
+ * letting every FieldOccupant run freely on its own thread. FieldOccupants
+ * don't need launching; they are found on the Field at the start of each
+ * generation. Running a GenerationEngine steps it until interrupted.
+ */
+public interface GenerationEngine extends AgentLauncher, Runnable
+{
+   /**
+    * Advances the Field by one generation.
+    *
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for the workers.
+    */
+   void step() throws InterruptedException;
+
+
+   /**
+    * Returns the number of generations this GenerationEngine has completed.
+    *
+    * @return the number of generations completed.
+    */
+   long getGeneration();
+
+
+   /**
+    * FieldOccupants never go idle when the Field is advanced in generations,
+    * so there's nobody to wake.
+    *
+    * @param occupant
+    *           the FieldOccupant to wake.
+    */
+   @Override
+   default void wakeUp(FieldOccupant occupant)
+   {
+      // Nothing to do, every FieldOccupant acts each generation.
+   } // wakeUp
+}
@@ -0,0 +1,179 @@
+package foxesandhounds;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counts how often values of each size are seen, in buckets that double in
+ * size: 0, 1, 2-3, 4-7, 8-15 and so on up to Long.MAX_VALUE. Recording a value
+ * finds its bucket from the position of its highest bit and adds one to a
+ * LongAdder, so many threads can record at once without contending or
+ * allocating. Percentiles are only known to within their bucket, so they are
+ * reported as the top of the bucket they fall in.
+ */
+public class Histogram
+{
+   /**
+    * Creates an empty Histogram.
+    */
+   public Histogram()
+   {
+      for (int i = 0; i < BUCKETS; i++)
+      {
+         p_buckets[i] = new LongAdder();
+      }
+   } // Histogram
+
+
+   /**
+    * Records a value. Negative values are recorded as 0.
+    *
+    * @param value
+    *           the value to record.
+    */
+   public void record(long value)
+   {
+      long recorded = Math.max(value, 0);
+
+      p_buckets[Long.SIZE - Long.numberOfLeadingZeros(recorded)].increment();
+      p_sum.add(recorded);
+      p_max.accumulate(recorded);
+   } // record
+
+
+   /**
+    * Returns the number of values recorded.
+    *
+    * @return the number of values recorded.
+    */
+   public long getCount()
+   {
+      long count = 0;
+
+      for (LongAdder bucket : p_buckets)
+      {
+         count += bucket.sum();
+      }
+
+      return count;
+   } // getCount
+
+
+   /**
+    * Returns the mean of the values recorded.
+    *
+    * @return the mean, or 0 if nothing was recorded.
+    */
+   public double getMean()
+   {
+      long count = getCount();
+
+      return count == 0 ? 0 : (double) p_sum.sum() / count;
+   } // getMean
+
+
+   /**
+    * Returns the largest value recorded.
+    *
+    * @return the largest value, or 0 if nothing was recorded.
+    */
+   public long getMax()
+   {
+      return p_max.get();
+   } // getMax
+
+
+   /**
+    * Returns a value that at least the given share of recorded values are no
+    * larger than: the top of the bucket that percentile falls in, or the
+    * largest value recorded if that is smaller.
+    *
+    * @param percentile
+    *           the share of values, from 0 to 100.
+    * @return the percentile, or 0 if nothing was recorded.
+    */
+   public long getPercentile(double percentile)
+   {
+      long[] counts = new long[BUCKETS];
+      long total = 0;
+      long seen = 0;
+      long wanted;
+
+      // Read each bucket once so the counts we walk add up to our total.
+      for (int i = 0; i < BUCKETS; i++)
+      {
+         counts[i] = p_buckets[i].sum();
+         total += counts[i];
+      }
+
+      wanted = (long) Math.ceil(total * percentile / 100);
+
+      for (int i = 0; i < BUCKETS; i++)
+      {
+         seen += counts[i];
+
+         if (seen > 0 && seen >= wanted)
+         {
+            return Math.min(getBucketTop(i), getMax());
+         }
+      }
+
+      return 0;
+   } // getPercentile
+
+
+   /**
+    * Returns a summary of the values recorded.
+    *
+    * @return a summary of the values recorded.
+    */
+   @Override
+   public String toString()
+   {
+      return toString(1, "");
+   } // toString
+
+
+   /**
+    * Returns a summary of the values recorded, divided down into a larger
+    * unit, e.g. nanoseconds into microseconds.
+    *
+    * @param divisor
+    *           what to divide each value by.
+    * @param unit
+    *           the name of the unit, shown after each value.
+    * @return a summary of the values recorded.
+    */
+   public String toString(double divisor, String unit)
+   {
+      return String.format(Locale.ROOT,
+               "n=%d mean=%.1f%s p50=%.1f%s p90=%.1f%s p99=%.1f%s max=%.1f%s",
+               getCount(), getMean() / divisor, unit,
+               getPercentile(50) / divisor, unit,
+               getPercentile(90) / divisor, unit,
+               getPercentile(99) / divisor, unit, getMax() / divisor, unit);
+   } // toString
+
+
+   /**
+    * Returns the largest value that falls in a bucket.
+    *
+    * @param bucket
+    *           the bucket.
+    * @return the largest value in the bucket.
+    */
+   private static long getBucketTop(int bucket)
+   {
+      return bucket == Long.SIZE ? Long.MAX_VALUE : (1L << bucket) - 1;
+   } // getBucketTop
+
+   // One bucket for 0 and one for each possible highest bit
+   private static final int      BUCKETS   = Long.SIZE + 1;
+
+   private final LongAdder[]     p_buckets = new LongAdder[BUCKETS];
+   private final LongAdder       p_sum     = new LongAdder();
+   private final LongAccumulator p_max     = new LongAccumulator(Math::max,
+            0);
+}
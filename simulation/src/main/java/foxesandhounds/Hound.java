@@ -0,0 +1,715 @@
+package foxesandhounds;
+
+import java.awt.Color;
+import java.util.concurrent.Phaser;
+import java.util.random.RandomGenerator;
+
+
+/**
+ * Hounds can display themselves. They also get hungry.
+ */
+public class Hound extends FieldOccupant
+{
+   /**
+    * Creates a new Hound.
+    * 
+    * @param row
+    *           the row the Hound is located at.
+    * @param col
+    *           the col the Hound is located at.
+    * @param theField
+    *           the Field the Hound is on.
+    * @param startPhaser
+    *           the start phaser to wait on.
+    */
+   public Hound(int row, int col, Field theField, Phaser startPhaser)
+   {
+      super(row, col, theField, startPhaser);
+
+      // Start out well-fed
+      eats();
+   }
+
+
+   /**
+    * Returns true if this Hound has starved to death.
+    * 
+    * @return true if this Hound has starved to death.
+    */
+   public boolean hasStarved()
+   {
+      return p_fedStatus <= 0;
+   }
+
+
+   /**
+    * Make this Hound hungrier by the amount we lived this round. Returns true
+    * if the Hound has starved.
+    *
+    * @return true if this Hound has starved to death.
+    */
+   public boolean getHungrier(int timeLived)
+   {
+      // Decrease the fed status of this Hound
+      p_fedStatus -= timeLived;
+      getTheField().updateHunger(this);
+      return hasStarved();
+   }
+
+
+   /**
+    * Feeds a Hound (i.e. resets hunger to start value).
+    */
+   public void eats()
+   {
+      // Reset the fed status of this Hound
+      p_fedStatus = p_houndStarveTime;
+      getTheField().updateHunger(this);
+   }
+
+
+   /**
+    * Returns how well fed this Hound is; it starves when this reaches 0.
+    * 
+    * @return the fed status of this Hound.
+    */
+   public int getFedStatus()
+   {
+      return p_fedStatus;
+   }
+
+
+   /**
+    * Returns the color to use for a Cell occupied by a Hound.
+    * 
+    * @return the color to use for a Cell occupied by a Hound
+    */
+   @Override
+   public Color getDisplayColor()
+   {
+      return HUNGER_COLORS[getHungerLevel(p_fedStatus)];
+   } // getDisplayColor
+
+
+   /**
+    * Returns the RGB value to use for a Cell occupied by a Hound with the given
+    * fed status, without creating any Colors.
+    * 
+    * @param fedStatus
+    *           the fed status of the Hound.
+    * @return the RGB value to use for a Cell occupied by the Hound.
+    */
+   public static int getDisplayRGB(int fedStatus)
+   {
+      return HUNGER_RGB[getHungerLevel(fedStatus)];
+   } // getDisplayRGB
+
+
+   /**
+    * Returns which of our precomputed colors to show for a fed status.
+    * 
+    * @param fedStatus
+    *           the fed status of a Hound.
+    * @return the index of the color to show.
+    */
+   private static int getHungerLevel(int fedStatus)
+   {
+      int starveTime = p_houndStarveTime;
+      int level;
+
+      // Hounds that starve at once are always as hungry as can be.
+      if (starveTime <= 0)
+      {
+         return 0;
+      }
+
+      level = (int) ((long) fedStatus * (HUNGER_LEVELS - 1) / starveTime);
+
+      return Math.max(0, Math.min(level, HUNGER_LEVELS - 1));
+   } // getHungerLevel
+
+
+   /**
+    * Builds the palette of colors for each hunger level. Well-fed Hounds are
+    * red and fade to white as they starve.
+    * 
+    * @return a Color for each hunger level.
+    */
+   private static Color[] createHungerColors()
+   {
+      float defaultHue = 0.0f;
+      float defaultBrightness = 1.0f;
+      Color[] colors = new Color[HUNGER_LEVELS];
+
+      for (int level = 0; level < HUNGER_LEVELS; level++)
+      {
+         colors[level] = Color.getHSBColor(defaultHue,
+                  (float) level / (HUNGER_LEVELS - 1), defaultBrightness);
+      }
+
+      return colors;
+   } // createHungerColors
+
+
+   /**
+    * Returns the species of a Hound.
+    * 
+    * @return Field.HOUND.
+    */
+   @Override
+   public byte getSpecies()
+   {
+      return Field.HOUND;
+   } // getSpecies
+
+
+   /**
+    * Returns the String representing a Hound.
+    * 
+    * @return the String representing a Hound.
+    */
+   @Override
+   public String toString()
+   {
+      return "H";
+   }
+
+
+   /**
+    * Sets the starve time for this class.
+    *
+    * @param starveTime
+    *           the starve time for a Hound.
+    */
+   public static void setStarveTime(int starveTime)
+   {
+      p_houndStarveTime = starveTime;
+   }
+
+
+   /**
+    * Returns the starve time for Hounds.
+    * 
+    * @return the starve time for Hounds.
+    */
+   public static long getStarveTime()
+   {
+      return p_houndStarveTime;
+   }
+
+
+   /**
+    * Allows a Hound to eat Foxes, reproduce, and eventually die if it can't eat
+    * frequently enough.
+    */
+   @Override
+   public void run()
+   {
+      RandomGenerator r = newRandom();
+      int sleepTime;
+
+      // If we haven't started, join and wait for the start signal...
+      getStartPhaser().awaitAdvance(getStartPhaser().getPhase());
+
+      // While we haven't starved, we can keep on doing things.
+      do
+      {
+         // Wait for a random amount of time, or until a Fox could be next to
+         // us if there wasn't one.
+         try
+         {
+            sleepTime = sleepUntilWoken(r);
+         }
+         catch (InterruptedException e)
+         {
+            // ignore, we can't be interrupted because we are a Hound.
+            sleepTime = 0;
+         }
+      }
+      while (wake(r, sleepTime));
+   } // run
+
+
+   /**
+    * Does Hound things once we wake up, then gets as much hungrier as we
+    * slept, leaving the Field if we have starved.
+    * 
+    * @param r
+    *           the source of randomness to choose Foxes with.
+    * @param slept
+    *           how many milliseconds we slept for.
+    * @return true if we haven't starved.
+    */
+   @Override
+   public boolean wake(RandomGenerator r, int slept)
+   {
+      watchNeighborhood();
+
+      // Now do Hound things...
+      try
+      {
+         act(r);
+      }
+      catch (InterruptedException e)
+      {
+         // ignore, we just go hungry this time.
+      }
+
+      if (getHungrier(slept))
+      {
+         // Before exiting, remove ourselves from the Field.
+         starve();
+         return false;
+      }
+
+      return true;
+   } // wake
+
+
+   /**
+    * Lets a Hound that found no Fox next to it stay idle until one of those
+    * Cells changes, but no longer than it takes to starve.
+    * 
+    * @return our fed status if there was no Fox to eat, NOT_IDLE otherwise.
+    */
+   @Override
+   public int getIdleTimeout()
+   {
+      return p_foxless ? Math.max(1, p_fedStatus) : NOT_IDLE;
+   } // getIdleTimeout
+
+
+   /**
+    * Lets a Hound eat and reproduce once, then get one tick hungrier. Hunger
+    * is measured in generations when the Field is advanced this way.
+    * 
+    * @param r
+    *           the source of randomness for this generation.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting to lock our Cells.
+    */
+   @Override
+   public void step(RandomGenerator r) throws InterruptedException
+   {
+      act(r);
+
+      if (getHungrier(1))
+      {
+         starve();
+      }
+   } // step
+
+
+   /**
+    * Removes this Hound from the Field once it has starved.
+    */
+   private void starve()
+   {
+      getTheField().setCellAt(getRow(), getCol(), null);
+      getTheField().getStatistics().recordStarvation();
+      SimulationEvents.houndStarvation(this);
+      interrupt();
+   } // starve
+
+
+   /**
+    * Looks for a neighboring Fox to eat and, if another Hound is next to that
+    * Fox, gives birth to a new Hound where the Fox was.
+    * 
+    * @param r
+    *           the source of randomness to choose Foxes with.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting to lock our Cells.
+    */
+   private void act(RandomGenerator r) throws InterruptedException
+   {
+      long woke = System.nanoTime();
+
+      // Attempt to eat the Fox and then reproduce.
+      if (propose(r) != NO_PROPOSAL
+               && eat(p_foxRow, p_foxCol, p_hasMate))
+      {
+         long latency = System.nanoTime() - woke;
+
+         getTheField().getMetrics().recordAction(latency);
+         SimulationEvents.houndEat(this, p_foxRow, p_foxCol, latency);
+      }
+   } // act
+
+
+   /**
+    * Picks a neighboring Fox to eat at random and checks whether another
+    * Hound is next to it to mate with. Nothing on the Field is changed.
+    * 
+    * @param r
+    *           the source of randomness to choose Foxes with.
+    * @return the index of the Fox, or NO_PROPOSAL if there's nothing to eat.
+    */
+   @Override
+   public int propose(RandomGenerator r)
+   {
+      NeighborCursor neighbors = getNeighborCursor();
+      int foxes = 0;
+
+      // Iterate over the neighbors and pick one of the Foxes nearby at random,
+      // giving each an equal chance as we count them.
+      neighbors.reset(getRow(), getCol());
+
+      while (neighbors.next())
+      {
+         if (neighbors.getSpecies() == Field.FOX
+                  && r.nextInt(++foxes) == 0)
+         {
+            p_foxRow = neighbors.getX();
+            p_foxCol = neighbors.getY();
+         }
+      } // while
+
+      p_foxless = foxes == 0;
+
+      if (p_foxless)
+      {
+         return NO_PROPOSAL;
+      }
+
+      // The Field counts the Hounds around the Fox for us, and we are one of
+      // them.
+      p_hasMate = hasMate(p_foxRow, p_foxCol);
+
+      return getTheField().indexOf(p_foxRow, p_foxCol);
+   } // propose
+
+
+   /**
+    * Eats the Fox we claimed and, if we had a mate, gives birth to a new Hound
+    * where it was. Hounds never leave the Field during a generation, so our
+    * mate is still there.
+    * 
+    * @param target
+    *           the index of the Fox's Cell.
+    */
+   @Override
+   public void commit(int target)
+   {
+      Field theField = getTheField();
+      FieldOccupant fox = theField.getOccupantAt(p_foxRow, p_foxCol);
+      Hound newborn = p_hasMate
+               ? new Hound(p_foxRow, p_foxCol, theField, getStartPhaser())
+               : null;
+
+      fox.interrupt();
+      theField.storeAt(target, newborn);
+
+      // Feed ourself from the Fox we just ate.
+      eats();
+      theField.getStatistics().recordEat();
+      SimulationEvents.houndEat(this, p_foxRow, p_foxCol, 0);
+
+      if (newborn != null)
+      {
+         theField.getStatistics().recordBirth();
+         SimulationEvents.houndBirth(this, newborn);
+         newborn.start();
+      }
+   } // commit
+
+
+   /**
+    * Gets one tick hungrier at the end of a generation of proposals, leaving
+    * the Field if we have starved.
+    */
+   @Override
+   public void age()
+   {
+      Field theField = getTheField();
+
+      if (getHungrier(1))
+      {
+         theField.storeAt(theField.indexOf(getRow(), getCol()), null);
+         theField.getStatistics().recordStarvation();
+         SimulationEvents.houndStarvation(this);
+         interrupt();
+      }
+   } // age
+
+
+   /**
+    * Eats the Fox at the given location, as long as it is still there once we
+    * own the Cells. If we have a mate and it is still alive, a new Hound is
+    * born where the Fox was.
+    * 
+    * @param foxRow
+    *           the row of the Fox to eat.
+    * @param foxCol
+    *           the col of the Fox to eat.
+    * @param hasMate
+    *           true if there's a Hound to mate with next to the Fox.
+    * @return true if we ate the Fox.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting to lock our Cells.
+    */
+   private boolean eat(int foxRow, int foxCol, boolean hasMate)
+            throws InterruptedException
+   {
+      Field theField = getTheField();
+      AgentMetrics metrics = theField.getMetrics();
+      CellLockManager locks = theField.getLockManager();
+      CellTransaction transaction;
+      FieldOccupant occupant;
+      Hound newborn;
+      int self = theField.indexOf(getRow(), getCol());
+      int fox = theField.indexOf(foxRow, foxCol);
+      int mate;
+
+      // Our mate has to be alive when the Hound is born, so we need its Cell
+      // as well as the Field's count of Hounds around the Fox.
+      if (hasMate && !findMate(foxRow, foxCol))
+      {
+         metrics.recordLostRace(AgentMetrics.MATE_GONE);
+         hasMate = false;
+      }
+
+      mate = theField.indexOf(p_mateRow, p_mateCol);
+
+      // On an optimistic Field, note the versions of our Cells, check they
+      // still hold what we need and then try to claim them all at once. If
+      // somebody got there first, look again.
+      if (theField.isOptimistic())
+      {
+         transaction = getTransaction();
+
+         for (int attempt = 0; attempt < CellTransaction.MAX_ATTEMPTS;
+                  attempt++)
+         {
+            transaction.begin();
+
+            if (!transaction.read(self) || !transaction.read(fox)
+                     || hasMate && !transaction.read(mate))
+            {
+               continue;
+            }
+
+            // If the Fox is gone, we missed it and get hungrier.
+            occupant = theField.getOccupantAt(foxRow, foxCol);
+
+            if (!(occupant instanceof Fox))
+            {
+               metrics.recordAttempts(attempt + 1);
+               metrics.recordLostRace(AgentMetrics.FOX_GONE);
+               return false;
+            }
+
+            if (transaction.commit())
+            {
+               // Only give birth if our mate is still around.
+               newborn = null;
+
+               if (isMateAlive(hasMate, p_mateRow, p_mateCol))
+               {
+                  newborn = new Hound(foxRow, foxCol, theField,
+                           getStartPhaser());
+               }
+
+               occupant.interrupt();
+               transaction.write(fox, newborn);
+               transaction.end();
+
+               // Feed ourself from the Fox we just ate.
+               eats();
+               theField.getStatistics().recordEat();
+               metrics.recordAttempts(attempt + 1);
+
+               if (newborn != null)
+               {
+                  theField.getStatistics().recordBirth();
+                  SimulationEvents.houndBirth(this, newborn);
+                  newborn.start();
+               }
+               return true;
+            }
+         } // for
+
+         metrics.recordAttempts(CellTransaction.MAX_ATTEMPTS);
+         metrics.recordLostRace(AgentMetrics.CELLS_BUSY);
+      }
+
+      // Otherwise if we have a mate, lock our Cell, the Fox's Cell and our
+      // mate's Cell, otherwise just our Cell and the Fox's. If they are too
+      // busy we'll go hungry this time.
+      else if (acquireCells(self, fox, hasMate ? mate : fox))
+      {
+         try
+         {
+            // If the location is still occupied, and the occupant is a
+            // Fox, we'll eat that Fox.
+            // Else we missed the Fox, so get hungrier.
+            occupant = theField.getOccupantAt(foxRow, foxCol);
+
+            if (occupant instanceof Fox)
+            {
+               // Set the Fox's Cell to be null so it will exit before
+               // trying to do anything.
+               occupant.interrupt();
+               theField.setCellAt(foxRow, foxCol, null);
+
+               // Feed ourself from the Fox we just ate.
+               eats();
+               theField.getStatistics().recordEat();
+
+               // If the Neighboring Hound still exists, then birth a new
+               // Hound where the Fox was.
+               if (isMateAlive(hasMate, p_mateRow, p_mateCol))
+               {
+                  // Set the Cell that we are going to eat with a new
+                  // Hound and start the thread.
+                  newborn = new Hound(foxRow, foxCol, theField,
+                           getStartPhaser());
+                  theField.setCellAt(foxRow, foxCol, newborn).start();
+                  theField.getStatistics().recordBirth();
+                  SimulationEvents.houndBirth(this, newborn);
+               }
+               return true;
+            } // Eat Fox
+
+            metrics.recordLostRace(AgentMetrics.FOX_GONE);
+         }
+         finally
+         {
+            if (hasMate)
+            {
+               locks.release(self, fox, mate);
+            }
+            else
+            {
+               locks.release(self, fox);
+            }
+         }
+      } // If we locked our Cells
+
+      return false;
+   } // eat
+
+
+   /**
+    * Checks that the Hound we planned to mate with is still alive, and
+    * records that we lost it if not.
+    * 
+    * @param hasMate
+    *           true if there was a Hound to mate with next to the Fox.
+    * @param mateRow
+    *           the row of the Hound we mate with, if any.
+    * @param mateCol
+    *           the col of the Hound we mate with, if any.
+    * @return true if we have a mate and it is still alive.
+    */
+   private boolean isMateAlive(boolean hasMate, int mateRow, int mateCol)
+   {
+      if (!hasMate)
+      {
+         return false;
+      }
+
+      if (getTheField().getOccupantAt(mateRow, mateCol) instanceof Hound)
+      {
+         return true;
+      }
+
+      getTheField().getMetrics().recordLostRace(AgentMetrics.MATE_GONE);
+      return false;
+   } // isMateAlive
+
+
+   /**
+    * Returns true if a Hound besides us is next to a Fox. We are next to it
+    * ourselves, so it needs at least two.
+    * 
+    * @param foxRow
+    *           the row of the Fox.
+    * @param foxCol
+    *           the col of the Fox.
+    * @return true if we have a mate next to the Fox.
+    */
+   private boolean hasMate(int foxRow, int foxCol)
+   {
+      return getTheField().getHoundNeighborsAt(foxRow, foxCol) > 1;
+   } // hasMate
+
+
+   /**
+    * Finds a Hound besides us next to a Fox to mate with and remembers where
+    * it is. The Field's count of Hounds around the Fox saves us looking when
+    * there is none.
+    * 
+    * @param foxRow
+    *           the row of the Fox.
+    * @param foxCol
+    *           the col of the Fox.
+    * @return true if we found a mate.
+    */
+   private boolean findMate(int foxRow, int foxCol)
+   {
+      NeighborCursor neighbors;
+      FieldOccupant occupant;
+
+      if (!hasMate(foxRow, foxCol))
+      {
+         return false;
+      }
+
+      neighbors = getNeighborCursor();
+      neighbors.reset(foxRow, foxCol);
+
+      while (neighbors.next())
+      {
+         occupant = neighbors.getOccupant();
+
+         if (occupant instanceof Hound && occupant != this)
+         {
+            p_mateRow = neighbors.getX();
+            p_mateCol = neighbors.getY();
+            return true;
+         }
+      } // while
+
+      return false;
+   } // findMate
+
+
+   // Default starve time for Hounds
+   public static final int DEFAULT_STARVE_TIME = DEFAULT_SLEEP
+            + DEFAULT_SLEEP + DEFAULT_SLEEP;
+
+   // Default starve time for Hounds, in generations, when the Field is
+   // advanced by a GenerationEngine
+   public static final int DEFAULT_STARVE_TICKS = 3;
+
+   // Class variable for all hounds
+   private static int p_houndStarveTime = DEFAULT_STARVE_TIME;
+
+   // Precomputed colors for each level of hunger, so drawing a Hound never
+   // creates a Color
+   private static final int     HUNGER_LEVELS = 256;
+   private static final Color[] HUNGER_COLORS = createHungerColors();
+   private static final int[]   HUNGER_RGB    = new int[HUNGER_LEVELS];
+
+   static
+   {
+      for (int level = 0; level < HUNGER_LEVELS; level++)
+      {
+         HUNGER_RGB[level] = HUNGER_COLORS[level].getRGB();
+      }
+   }
+
+   // Instance attributes to keep track of how hungry we are
+   private int     p_fedStatus;
+
+   // What we last proposed to eat, and with whom we'd mate
+   private int     p_foxRow;
+   private int     p_foxCol;
+   private boolean p_hasMate;
+   private int     p_mateRow;
+   private int     p_mateCol;
+
+   // Whether there was no Fox next to us when we last looked
+   private boolean p_foxless;
+}
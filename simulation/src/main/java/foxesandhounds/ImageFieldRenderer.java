@@ -0,0 +1,197 @@
+package foxesandhounds;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+
+/**
+ * Draws a Field into an offscreen image by writing pixels straight into its
+ * int raster, then copies the part of the image that changed onto the screen
+ * in one go. Colors come from species and hunger kept by the Field, so drawing
+ * never touches a FieldOccupant or creates a Color. After the first frame only
+ * the Cells that changed since the last frame are redrawn.
+ */
+public class ImageFieldRenderer implements FieldRenderer, CellVisitor
+{
+   /**
+    * Creates a new ImageFieldRenderer.
+    *
+    * @param theField
+    *           the Field to draw.
+    * @param cellSize
+    *           the size of each Cell on the screen, in pixels.
+    */
+   public ImageFieldRenderer(Field theField, int cellSize)
+   {
+      p_theField = theField;
+      p_cellSize = cellSize;
+      p_image = new BufferedImage(theField.getWidth() * cellSize,
+               theField.getHeight() * cellSize, BufferedImage.TYPE_INT_RGB);
+      p_pixels = ((DataBufferInt) p_image.getRaster().getDataBuffer())
+               .getData();
+      p_canvas = new Canvas()
+      {
+         /**
+          * Repaints the window from our image, e.g. after it was uncovered.
+          *
+          * @param graphicsContext
+          *           the GUI window to draw to.
+          */
+         @Override
+         public void paint(Graphics graphicsContext)
+         {
+            graphicsContext.drawImage(p_image, 0, 0, null);
+         }
+
+
+         /**
+          * Paints straight over what is there; our image covers everything.
+          *
+          * @param graphicsContext
+          *           the GUI window to draw to.
+          */
+         @Override
+         public void update(Graphics graphicsContext)
+         {
+            paint(graphicsContext);
+         }
+
+         private static final long serialVersionUID = 1L;
+      };
+   } // ImageFieldRenderer
+
+
+   /**
+    * Returns the Canvas that shows our image, to be added to a window.
+    *
+    * @return the Canvas that shows our image.
+    */
+   public Canvas getCanvas()
+   {
+      return p_canvas;
+   } // getCanvas
+
+
+   /**
+    * Draws the whole Field the first time, then just what changed, and copies
+    * the changed part of the image to the screen.
+    */
+   @Override
+   public void drawFrame()
+   {
+      Graphics graphicsContext;
+
+      p_minX = Integer.MAX_VALUE;
+      p_minY = Integer.MAX_VALUE;
+      p_maxX = -1;
+      p_maxY = -1;
+
+      if (p_drawnOnce)
+      {
+         p_theField.drainDirtyCells(this);
+      }
+      else
+      {
+         // Forget what changed before we start, anything that changes while
+         // we draw will be redrawn next frame.
+         p_theField.clearDirtyCells();
+
+         for (int y = 0; y < p_theField.getHeight(); y++)
+         {
+            for (int x = 0; x < p_theField.getWidth(); x++)
+            {
+               visit(x, y);
+            }
+         }
+
+         p_drawnOnce = true;
+      }
+
+      // Nothing changed, nothing to copy.
+      if (p_maxX < 0)
+      {
+         return;
+      }
+
+      graphicsContext = p_canvas.getGraphics();
+
+      if (graphicsContext != null)
+      {
+         int x1 = p_minX * p_cellSize;
+         int y1 = p_minY * p_cellSize;
+         int x2 = (p_maxX + 1) * p_cellSize;
+         int y2 = (p_maxY + 1) * p_cellSize;
+
+         graphicsContext.drawImage(p_image, x1, y1, x2, y2, x1, y1, x2, y2,
+                  null);
+         graphicsContext.dispose();
+      }
+   } // drawFrame
+
+
+   /**
+    * Draws a single Cell into our image.
+    *
+    * @param x
+    *           is the x-coordinate of the Cell to draw.
+    * @param y
+    *           is the y-coordinate of the Cell to draw.
+    */
+   @Override
+   public void visit(int x, int y)
+   {
+      int rgb;
+      int rowStart;
+
+      switch (p_theField.getSpeciesAt(x, y))
+      {
+         case Field.FOX:
+            rgb = FOX_RGB;
+            break;
+
+         case Field.HOUND:
+            rgb = Hound.getDisplayRGB(p_theField.getHungerAt(x, y));
+            break;
+
+         default:
+            rgb = EMPTY_RGB;
+      }
+
+      // Fill the square of pixels for this Cell, one row at a time.
+      for (int row = 0; row < p_cellSize; row++)
+      {
+         rowStart = (y * p_cellSize + row) * p_image.getWidth()
+                  + x * p_cellSize;
+
+         for (int col = 0; col < p_cellSize; col++)
+         {
+            p_pixels[rowStart + col] = rgb;
+         }
+      }
+
+      // Grow the area we need to copy to the screen.
+      p_minX = Math.min(p_minX, x);
+      p_minY = Math.min(p_minY, y);
+      p_maxX = Math.max(p_maxX, x);
+      p_maxY = Math.max(p_maxY, y);
+   } // visit
+
+   private static final int    EMPTY_RGB = Color.WHITE.getRGB();
+   private static final int    FOX_RGB   = Fox.DISPLAY_COLOR.getRGB();
+
+   private final Field         p_theField;
+   private final int           p_cellSize;
+   private final BufferedImage p_image;
+   private final int[]         p_pixels;
+   private final Canvas        p_canvas;
+   private boolean             p_drawnOnce;
+
+   // The Cells that changed this frame all lie within these bounds
+   private int                 p_minX;
+   private int                 p_minY;
+   private int                 p_maxX;
+   private int                 p_maxY;
+}
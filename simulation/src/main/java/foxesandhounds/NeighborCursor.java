@@ -0,0 +1,131 @@
+package foxesandhounds;
+
+
+/**
+ * A reusable cursor over the 8 neighbors of a Cell of a Field. Moving the
+ * cursor allocates nothing and wraps around the edges of the Field using the
+ * Field's precomputed wraparound tables rather than modulo arithmetic.
+ *
+ * A NeighborCursor keeps its position in plain fields, so each thread needs
+ * its own.
+ */
+public class NeighborCursor
+{
+   /**
+    * Creates a new NeighborCursor over a Field.
+    *
+    * @param theField
+    *           the Field to visit neighbors on.
+    */
+   public NeighborCursor(Field theField)
+   {
+      p_theField = theField;
+   }
+
+
+   /**
+    * Centers the cursor on the Cell at the coordinates provided. The next call
+    * to next() moves it to the first neighbor of that Cell.
+    *
+    * @param x
+    *           is the x-coordinate of the Cell whose neighbors we visit.
+    * @param y
+    *           is the y-coordinate of the Cell whose neighbors we visit.
+    */
+   public void reset(int x, int y)
+   {
+      p_x = p_theField.normalizeIndex(x, Field.WIDTH_INDEX);
+      p_y = p_theField.normalizeIndex(y, !Field.WIDTH_INDEX);
+      p_nextX = p_theField.getNextX(p_x);
+      p_prevX = p_theField.getPrevX(p_x);
+      p_nextY = p_theField.getNextY(p_y);
+      p_prevY = p_theField.getPrevY(p_y);
+      p_position = -1;
+   } // reset
+
+
+   /**
+    * Moves the cursor to the next neighbor.
+    *
+    * @return true if the cursor is on a neighbor, false once all 8 neighbors
+    *         have been visited.
+    */
+   public boolean next()
+   {
+      if (++p_position >= X_OFFSETS.length)
+      {
+         return false;
+      }
+
+      // Pick the wrapped coordinate for each offset out of the ones we looked
+      // up when we were reset.
+      p_currentX = X_OFFSETS[p_position] == 0 ? p_x
+               : X_OFFSETS[p_position] > 0 ? p_nextX : p_prevX;
+      p_currentY = Y_OFFSETS[p_position] == 0 ? p_y
+               : Y_OFFSETS[p_position] > 0 ? p_nextY : p_prevY;
+
+      return true;
+   } // next
+
+
+   /**
+    * Returns the x-coordinate of the neighbor the cursor is on.
+    *
+    * @return the x-coordinate of the current neighbor.
+    */
+   public int getX()
+   {
+      return p_currentX;
+   } // getX
+
+
+   /**
+    * Returns the y-coordinate of the neighbor the cursor is on.
+    *
+    * @return the y-coordinate of the current neighbor.
+    */
+   public int getY()
+   {
+      return p_currentY;
+   } // getY
+
+
+   /**
+    * Returns the FieldOccupant of the neighbor the cursor is on.
+    *
+    * @return the FieldOccupant of the current neighbor, or null if it is
+    *         empty.
+    */
+   public FieldOccupant getOccupant()
+   {
+      return p_theField.getOccupantAt(p_currentX, p_currentY);
+   } // getOccupant
+
+
+   /**
+    * Returns the species of the neighbor the cursor is on.
+    *
+    * @return Field.EMPTY, Field.FOX or Field.HOUND.
+    */
+   public byte getSpecies()
+   {
+      return p_theField.getSpeciesAt(p_currentX, p_currentY);
+   } // getSpecies
+
+   // For any Cell there are 8 neighbors - left, right, above, below, and the
+   // four diagonals. These are the offsets to each, in the order we visit
+   // them.
+   private static final int[] X_OFFSETS = { 0, 1, 0, -1, 1, 1, -1, -1 };
+   private static final int[] Y_OFFSETS = { 1, 0, -1, 0, 1, -1, 1, -1 };
+
+   private final Field        p_theField;
+   private int                p_x;
+   private int                p_y;
+   private int                p_nextX;
+   private int                p_prevX;
+   private int                p_nextY;
+   private int                p_prevY;
+   private int                p_position;
+   private int                p_currentX;
+   private int                p_currentY;
+}
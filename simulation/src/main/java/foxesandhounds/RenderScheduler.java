@@ -0,0 +1,108 @@
+package foxesandhounds;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Draws a Field whenever it changes, at most a fixed number of frames per
+ * second. Between frames the drawing thread parks until the Field tells us it
+ * changed, and any changes made while we wait for the next frame are drawn
+ * together in that one frame.
+ */
+public class RenderScheduler implements Runnable
+{
+   /**
+    * Creates a new RenderScheduler.
+    *
+    * @param theField
+    *           the Field to watch for changes.
+    * @param drawFrame
+    *           draws one frame of the Field.
+    * @param framesPerSecond
+    *           the most frames to draw each second.
+    */
+   public RenderScheduler(Field theField, Runnable drawFrame,
+            int framesPerSecond)
+   {
+      p_theField = theField;
+      p_drawFrame = drawFrame;
+      p_frameNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+   } // RenderScheduler
+
+
+   /**
+    * Draws frames on the current thread until it is interrupted.
+    */
+   @Override
+   public void run()
+   {
+      Thread renderThread = Thread.currentThread();
+      long nextFrame = System.nanoTime();
+      long now;
+      SimulationEvents.FrameRender render;
+
+      // Wake us up when the Field changes.
+      p_theField.setUpdateListener(() -> LockSupport.unpark(renderThread));
+
+      try
+      {
+         while (!renderThread.isInterrupted())
+         {
+            // Park until the Field has changed. We check the flag first, so
+            // a change made before we parked isn't missed.
+            while (!p_theField.getAndSetFieldUpdated(false))
+            {
+               LockSupport.park(this);
+
+               if (renderThread.isInterrupted())
+               {
+                  return;
+               }
+            }
+
+            // Don't draw faster than our frame rate; anything else that
+            // changes meanwhile makes it into this frame.
+            while ((now = System.nanoTime()) < nextFrame)
+            {
+               LockSupport.parkNanos(this, nextFrame - now);
+            }
+
+            p_theField.getAndSetFieldUpdated(false);
+            render = new SimulationEvents.FrameRender();
+            render.begin();
+            p_drawFrame.run();
+            render.end();
+
+            if (render.shouldCommit())
+            {
+               render.frame = p_frames;
+               render.commit();
+            }
+
+            p_frames++;
+            nextFrame = now + p_frameNanos;
+         }
+      }
+      finally
+      {
+         p_theField.setUpdateListener(null);
+      }
+   } // run
+
+
+   /**
+    * Returns the number of frames drawn so far.
+    *
+    * @return the number of frames drawn.
+    */
+   public long getFrames()
+   {
+      return p_frames;
+   } // getFrames
+
+   private final Field    p_theField;
+   private final Runnable p_drawFrame;
+   private final long     p_frameNanos;
+   private volatile long  p_frames;
+}
@@ -0,0 +1,285 @@
+package foxesandhounds;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures a headless run of a Simulation and reports how it went: how many
+ * births, meals, starvations and deaths there were and how many of each per
+ * second, the peak and final populations, how many threads FieldOccupants ran
+ * on, and how much time the JVM spent collecting garbage and how large its
+ * heap grew.
+ *
+ * Call start before the run, sample every so often during it to catch peak
+ * populations, and finish at the end.
+ */
+public class RunReport
+{
+   /**
+    * Creates a new RunReport.
+    *
+    * @param theField
+    *           the Field being run.
+    * @param launcher
+    *           the AgentLauncher starting FieldOccupants; only a
+    *           ThreadLauncher counts agent threads.
+    */
+   public RunReport(Field theField, AgentLauncher launcher)
+   {
+      p_theField = theField;
+      p_launcher = launcher instanceof ThreadLauncher
+               ? (ThreadLauncher) launcher : null;
+   } // RunReport
+
+
+   /**
+    * Starts measuring. Births and garbage collection before now are not
+    * counted.
+    */
+   public void start()
+   {
+      FieldStatistics statistics = p_theField.getStatistics();
+
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+      {
+         if (pool.getType() == MemoryType.HEAP)
+         {
+            pool.resetPeakUsage();
+         }
+      }
+
+      p_startBirths = statistics.getBirths();
+      p_startEats = statistics.getEats();
+      p_startStarvations = statistics.getStarvations();
+      p_startDeaths = statistics.getDeaths();
+      p_startGcMillis = getGcMillis();
+      p_startGcCount = getGcCount();
+      p_startNanos = System.nanoTime();
+
+      sample();
+   } // start
+
+
+   /**
+    * Reads how many FieldOccupants are on the Field and how many agent threads
+    * are running, and remembers the most seen of each.
+    */
+   public void sample()
+   {
+      FieldStatistics statistics = p_theField.getStatistics();
+      long foxes = statistics.getFoxes();
+      long hounds = statistics.getHounds();
+
+      p_foxes = foxes;
+      p_hounds = hounds;
+      p_peakFoxes = Math.max(p_peakFoxes, foxes);
+      p_peakHounds = Math.max(p_peakHounds, hounds);
+
+      if (p_launcher != null)
+      {
+         p_peakAgentThreads = Math.max(p_peakAgentThreads,
+                  p_launcher.getRunning());
+      }
+   } // sample
+
+
+   /**
+    * Stops measuring.
+    *
+    * @param generations
+    *           the number of generations run, or 0 if the Field was not
+    *           advanced in generations.
+    */
+   public void finish(long generations)
+   {
+      FieldStatistics statistics = p_theField.getStatistics();
+
+      p_elapsedNanos = System.nanoTime() - p_startNanos;
+      p_generations = generations;
+
+      sample();
+
+      p_births = statistics.getBirths() - p_startBirths;
+      p_eats = statistics.getEats() - p_startEats;
+      p_starvations = statistics.getStarvations() - p_startStarvations;
+      p_deaths = statistics.getDeaths() - p_startDeaths;
+      p_gcMillis = getGcMillis() - p_startGcMillis;
+      p_gcCount = getGcCount() - p_startGcCount;
+      p_peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+      {
+         if (pool.getType() == MemoryType.HEAP)
+         {
+            p_peakHeapBytes += pool.getPeakUsage().getUsed();
+         }
+      }
+   } // finish
+
+
+   /**
+    * Returns the report as lines of text.
+    *
+    * @return the report as text.
+    */
+   @Override
+   public String toString()
+   {
+      return String.format(Locale.ROOT,
+               "Field:              %d x %d%n"
+                        + "Elapsed:            %.3f s%n"
+                        + "Generations:        %d%n"
+                        + "Births:             %d (%.1f/s)%n"
+                        + "Eats:               %d (%.1f/s)%n"
+                        + "Starvations:        %d (%.1f/s)%n"
+                        + "Deaths:             %d (%.1f/s)%n"
+                        + "Foxes:              %d final, %d peak%n"
+                        + "Hounds:             %d final, %d peak%n"
+                        + "Agent threads:      %d started, %d peak%n"
+                        + "JVM threads:        %d peak%n"
+                        + "GC:                 %d ms in %d collections%n"
+                        + "Heap high water:    %.1f MB",
+               p_theField.getWidth(), p_theField.getHeight(), getSeconds(),
+               p_generations, p_births, perSecond(p_births), p_eats,
+               perSecond(p_eats), p_starvations, perSecond(p_starvations),
+               p_deaths, perSecond(p_deaths), p_foxes, p_peakFoxes, p_hounds,
+               p_peakHounds, getAgentThreadsStarted(), p_peakAgentThreads,
+               p_peakThreads, p_gcMillis, p_gcCount,
+               p_peakHeapBytes / (1024.0 * 1024.0));
+   } // toString
+
+
+   /**
+    * Returns the report as a JSON object on one line.
+    *
+    * @return the report as JSON.
+    */
+   public String toJson()
+   {
+      return String.format(Locale.ROOT, "{\"width\":%d,\"height\":%d,"
+               + "\"elapsedSeconds\":%.3f,\"generations\":%d,"
+               + "\"births\":%d,\"birthsPerSecond\":%.3f,"
+               + "\"eats\":%d,\"eatsPerSecond\":%.3f,"
+               + "\"starvations\":%d,\"starvationsPerSecond\":%.3f,"
+               + "\"deaths\":%d,\"deathsPerSecond\":%.3f,"
+               + "\"finalFoxes\":%d,\"peakFoxes\":%d,"
+               + "\"finalHounds\":%d,\"peakHounds\":%d,"
+               + "\"agentThreadsStarted\":%d,\"peakAgentThreads\":%d,"
+               + "\"peakJvmThreads\":%d,\"gcMillis\":%d,\"gcCount\":%d,"
+               + "\"peakHeapBytes\":%d}",
+               p_theField.getWidth(), p_theField.getHeight(), getSeconds(),
+               p_generations, p_births, perSecond(p_births), p_eats,
+               perSecond(p_eats), p_starvations, perSecond(p_starvations),
+               p_deaths, perSecond(p_deaths), p_foxes, p_peakFoxes, p_hounds,
+               p_peakHounds, getAgentThreadsStarted(), p_peakAgentThreads,
+               p_peakThreads, p_gcMillis, p_gcCount, p_peakHeapBytes);
+   } // toJson
+
+
+   /**
+    * Returns how long the run took, in seconds.
+    *
+    * @return the length of the run in seconds.
+    */
+   private double getSeconds()
+   {
+      return p_elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+   } // getSeconds
+
+
+   /**
+    * Returns how many times per second something happened during the run.
+    *
+    * @param count
+    *           how many times it happened.
+    * @return how many times it happened per second.
+    */
+   private double perSecond(long count)
+   {
+      return p_elapsedNanos == 0 ? 0 : count / getSeconds();
+   } // perSecond
+
+
+   /**
+    * Returns the number of agent threads started, or 0 if FieldOccupants
+    * don't run on threads of their own.
+    *
+    * @return the number of agent threads started.
+    */
+   private long getAgentThreadsStarted()
+   {
+      return p_launcher == null ? 0 : p_launcher.getStarted();
+   } // getAgentThreadsStarted
+
+
+   /**
+    * Returns the total time the JVM has spent collecting garbage.
+    *
+    * @return milliseconds spent collecting garbage.
+    */
+   private static long getGcMillis()
+   {
+      long millis = 0;
+
+      for (GarbageCollectorMXBean gc : ManagementFactory
+               .getGarbageCollectorMXBeans())
+      {
+         millis += Math.max(0, gc.getCollectionTime());
+      }
+
+      return millis;
+   } // getGcMillis
+
+
+   /**
+    * Returns the total number of garbage collections the JVM has run.
+    *
+    * @return the number of garbage collections.
+    */
+   private static long getGcCount()
+   {
+      long count = 0;
+
+      for (GarbageCollectorMXBean gc : ManagementFactory
+               .getGarbageCollectorMXBeans())
+      {
+         count += Math.max(0, gc.getCollectionCount());
+      }
+
+      return count;
+   } // getGcCount
+
+   private final Field          p_theField;
+   private final ThreadLauncher p_launcher;
+
+   // Where the counters stood when we started
+   private long                 p_startNanos;
+   private long                 p_startBirths;
+   private long                 p_startEats;
+   private long                 p_startStarvations;
+   private long                 p_startDeaths;
+   private long                 p_startGcMillis;
+   private long                 p_startGcCount;
+
+   // What we found
+   private long                 p_elapsedNanos;
+   private long                 p_generations;
+   private long                 p_births;
+   private long                 p_eats;
+   private long                 p_starvations;
+   private long                 p_deaths;
+   private long                 p_foxes;
+   private long                 p_hounds;
+   private long                 p_peakFoxes;
+   private long                 p_peakHounds;
+   private long                 p_peakAgentThreads;
+   private long                 p_peakThreads;
+   private long                 p_gcMillis;
+   private long                 p_gcCount;
+   private long                 p_peakHeapBytes;
+}
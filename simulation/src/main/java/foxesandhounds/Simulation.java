@@ -0,0 +1,639 @@
+package foxesandhounds;
+
+import java.awt.*;
+import java.io.FileDescriptor;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * The Simulation class is a program that runs and animates a simulation of
+ * Foxes and Hounds.
+ */
+public class Simulation
+{
+
+   // The constant CELL_SIZE determines the size of each Cell on the
+   // screen during animation. (You may change this if you wish.)
+   private static final int    CELL_SIZE     = 15;
+
+   // Large Fields get smaller Cells so the window fits within this many
+   // pixels each way.
+   private static final int    MAX_WINDOW    = 1000;
+
+   // How often a headless run checks the populations of the Field
+   private static final long   SAMPLE_NANOS  = TimeUnit.MILLISECONDS
+            .toNanos(100);
+   private static final String USAGE_MESSAGE = "Usage: java foxesandhounds.Simulation [--graphics] [--width int] [--height int] [--starvetime int] [--fox float] [--hound float] [--threads platform|virtual] [--engine threads|step|tiles|bitboard|store|events] [--timescale float] [--workers int] [--concurrency locking|optimistic] [--storage flat|sparse] [--seed long] [--fps int] [--norender] [--output file] [--headless] [--duration seconds] [--generations int] [--json] [--metrics seconds] [--jfr file]";
+
+
+   /**
+    * Main reads the parameters and performs the simulation and animation.
+    */
+   public static void main(String[] args) throws InterruptedException
+   {
+      /**
+       * Default parameters. (You may change these if you wish.)
+       */
+      int width = 35; // Default width
+      int height = 35; // Default height
+      int starveTime = Hound.DEFAULT_STARVE_TIME; // Default starvation time
+      boolean starveTimeGiven = false;
+      double probabilityFox = 0.15; // Default probability of fox
+      double probabilityHound = 0.05; // Default probability of hound
+      boolean graphicsMode = false;
+      String threadMode = "platform";
+      String engineMode = "threads";
+      double timeScale = EventEngine.AS_FAST_AS_POSSIBLE;
+      int workers = Runtime.getRuntime().availableProcessors();
+      String concurrencyMode = "locking";
+      String storageMode = "flat";
+      int framesPerSecond = 30;
+      boolean renderMode = true;
+      String outputFile = null;
+      boolean headless = false;
+      int durationSeconds = 0;
+      int generations = 0;
+      boolean jsonReport = false;
+      int metricsSeconds = 0;
+      String recordingFile = null;
+      RunReport report = null;
+      GenerationEngine engine = null;
+      long seed = new SplittableRandom().nextLong(); // Default seed
+      SplittableRandom randomGenerator = null;
+      Field theField = null;
+      Phaser startPhaser = new Phaser();
+
+      // Set this thread to be the gate keeper for the race. No threads may run
+      // until we say so.
+      startPhaser.register();
+
+      // If we attach a GUI to this program, these objects will hold
+      // references to the GUI elements
+      Frame windowFrame = null;
+      Canvas drawingCanvas = null;
+      ImageFieldRenderer imageRenderer = null;
+      FieldRenderer renderer = null;
+      OutputStream textOutput;
+      int cellSize;
+
+      /*
+       * Process the input parameters. Switches we understand include:
+       * --graphics for "graphics" mode --width 999 to set the "width" --height
+       * 999 to set the height --starvetime 999 to set the "starve time" --fox
+       * 0.999 to set the "fox probability" --hound 0.999 to set the
+       * "hound probability" --threads virtual to run agents on virtual threads
+       * --engine step to advance the Field in generations --engine tiles to
+       * advance it in generations of lock-free tiles --engine bitboard to
+       * advance it in generations of bit-planes, headless only --engine
+       * store to advance it in generations of an AgentStore, headless only
+       * --engine events to wake agents from a timing wheel on simulated time,
+       * where a generation is a simulated second --timescale 60 to run 60
+       * simulated seconds per second rather than as fast as possible
+       * --workers 99 to set the number of workers stepping the Field
+       * --concurrency optimistic to change Cells with transactions instead of
+       * locks --storage sparse to keep only the chunks of the Field somebody
+       * occupies --seed 99 to repeat a run --fps 99 to cap the frame rate
+       * --norender to run without drawing the Field at all --output
+       * frames.txt to write text frames to a file or pipe
+       * --headless to run without drawing and report how the run went
+       * --duration 99 to stop a headless run after so many seconds
+       * --generations 99 to stop a headless run after so many generations
+       * --json to write the report as JSON
+       * --metrics 99 to dump how agents contend for Cells every so often
+       * --jfr run.jfr to record our Flight Recorder events to a file
+       */
+      for (int argNum = 0; argNum < args.length; argNum++)
+      {
+         try
+         {
+            switch (args[argNum])
+            {
+               case "--graphics": // Graphics mode
+                  graphicsMode = true;
+                  break;
+
+               case "--width": // Set width
+                  width = Integer.parseInt(args[++argNum]);
+                  break;
+
+               case "--height": // set height
+                  height = Integer.parseInt(args[++argNum]);
+                  break;
+
+               case "--starvetime": // set 'starve time'
+                  starveTime = Integer.parseInt(args[++argNum]);
+                  starveTimeGiven = true;
+                  break;
+
+               case "--fox": // set the probability for adding a fox
+                  probabilityFox = Double.parseDouble(args[++argNum]);
+                  break;
+
+               case "--hound": // set the probability for adding a hound
+                  probabilityHound = Double.parseDouble(args[++argNum]);
+                  break;
+
+               case "--threads": // set the kind of thread agents run on
+                  threadMode = args[++argNum];
+                  break;
+
+               case "--engine": // set how the Field is advanced
+                  engineMode = args[++argNum];
+                  break;
+
+               case "--timescale": // set simulated seconds per second
+                  timeScale = Double.parseDouble(args[++argNum]);
+                  break;
+
+               case "--workers": // set the number of step workers
+                  workers = Integer.parseInt(args[++argNum]);
+                  break;
+
+               case "--concurrency": // set how Cells are changed safely
+                  concurrencyMode = args[++argNum];
+                  break;
+
+               case "--storage": // set how the Cells are kept
+                  storageMode = args[++argNum];
+                  break;
+
+               case "--seed": // set the seed all randomness comes from
+                  seed = Long.parseLong(args[++argNum]);
+                  break;
+
+               case "--fps": // set the most frames to draw per second
+                  framesPerSecond = Integer.parseInt(args[++argNum]);
+                  break;
+
+               case "--norender": // don't draw the Field
+                  renderMode = false;
+                  break;
+
+               case "--output": // write text frames to a file or pipe
+                  outputFile = args[++argNum];
+                  break;
+
+               case "--headless": // run for a while and report
+                  headless = true;
+                  break;
+
+               case "--duration": // set how many seconds to run for
+                  durationSeconds = Integer.parseInt(args[++argNum]);
+                  break;
+
+               case "--generations": // set how many generations to run for
+                  generations = Integer.parseInt(args[++argNum]);
+                  break;
+
+               case "--json": // write the report as JSON
+                  jsonReport = true;
+                  break;
+
+               case "--metrics": // set how often to dump agent metrics
+                  metricsSeconds = Integer.parseInt(args[++argNum]);
+                  break;
+
+               case "--jfr": // record Flight Recorder events to a file
+                  recordingFile = args[++argNum];
+                  break;
+
+               default: // Anything else is an error and we'll quit
+                  System.err.println("Unrecognized switch.");
+                  System.err.println(USAGE_MESSAGE);
+                  System.exit(1);
+            } // switch
+         }
+         catch (NumberFormatException | ArrayIndexOutOfBoundsException e)
+         {
+            System.err.println("Illegal or missing argument.");
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
+         }
+      } // for
+
+      if (framesPerSecond <= 0)
+      {
+         System.err.println("Frame rate must be positive.");
+         System.err.println(USAGE_MESSAGE);
+         System.exit(1);
+      }
+
+      if (timeScale < 0)
+      {
+         System.err.println("Time scale can't be negative.");
+         System.err.println(USAGE_MESSAGE);
+         System.exit(1);
+      }
+
+      if (workers < 1)
+      {
+         System.err.println("There must be at least one worker.");
+         System.err.println(USAGE_MESSAGE);
+         System.exit(1);
+      }
+
+      // A headless run must know when to stop, and only the generation
+      // engines count generations.
+      if (headless && durationSeconds <= 0 && generations <= 0)
+      {
+         System.err.println("Headless runs need a duration or generations.");
+         System.err.println(USAGE_MESSAGE);
+         System.exit(1);
+      }
+
+      if (!headless && (durationSeconds > 0 || generations > 0))
+      {
+         System.err.println("Duration and generations need --headless.");
+         System.err.println(USAGE_MESSAGE);
+         System.exit(1);
+      }
+
+      if (generations > 0 && engineMode.equals("threads"))
+      {
+         System.err.println("Generations need an engine other than threads.");
+         System.err.println(USAGE_MESSAGE);
+         System.exit(1);
+      }
+
+      // The bitboard and store engines stop changing the Field once they
+      // start, so there's nothing to draw.
+      if ((engineMode.equals("bitboard") || engineMode.equals("store"))
+               && !headless)
+      {
+         System.err.println("The " + engineMode + " engine needs --headless.");
+         System.err.println(USAGE_MESSAGE);
+         System.exit(1);
+      }
+
+      // Headless runs never draw the Field.
+      if (headless)
+      {
+         graphicsMode = false;
+         renderMode = false;
+      }
+
+      // Record our Flight Recorder events, along with the JDK's own, until we
+      // exit.
+      if (recordingFile != null)
+      {
+         try
+         {
+            SimulationEvents.startRecording(Paths.get(recordingFile));
+         }
+         catch (IOException | ParseException | IllegalStateException e)
+         {
+            System.err.println("Can't record to " + recordingFile + ": "
+                     + e.getMessage());
+            System.exit(1);
+         }
+      }
+
+      // Derive all our randomness from the seed, so the same seed populates
+      // the Field the same way and the step and tiles engines then advance it
+      // the same way.
+      randomGenerator = new SplittableRandom(seed);
+      FieldOccupant.setSeed(randomGenerator.nextLong());
+
+      // Decide what kind of threads our FieldOccupants will run on.
+      try
+      {
+         switch (threadMode)
+         {
+            case "platform":
+               FieldOccupant.setLauncher(
+                        ThreadLauncher.newPlatformThreadLauncher());
+               break;
+
+            case "virtual":
+               FieldOccupant.setLauncher(
+                        ThreadLauncher.newVirtualThreadLauncher());
+               break;
+
+            default:
+               System.err.println("Unrecognized thread mode.");
+               System.err.println(USAGE_MESSAGE);
+               System.exit(1);
+         } // switch
+      }
+      catch (UnsupportedOperationException e)
+      {
+         System.err.println(e.getMessage());
+         System.exit(1);
+      }
+
+      // Create the initial Field, keeping every Cell or only the chunks of
+      // Cells that are occupied.
+      try
+      {
+         switch (storageMode)
+         {
+            case "flat":
+               theField = new Field(width, height);
+               break;
+
+            case "sparse":
+               theField = new Field(new ChunkedFieldStorage(width, height),
+                        new AtomicBoolean(false));
+               break;
+
+            default:
+               System.err.println("Unrecognized storage mode.");
+               System.err.println(USAGE_MESSAGE);
+               System.exit(1);
+         } // switch
+      }
+      catch (IllegalArgumentException e)
+      {
+         System.err.println(e.getMessage());
+         System.exit(1);
+      }
+
+      // Decide whether FieldOccupants lock Cells or change them optimistically.
+      switch (concurrencyMode)
+      {
+         case "locking":
+            break;
+
+         case "optimistic":
+            theField.setOptimistic(true);
+            break;
+
+         default:
+            System.err.println("Unrecognized concurrency mode.");
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
+      } // switch
+
+      // Decide how the Field is advanced. Under most generation engines
+      // Hounds starve after a number of generations rather than milliseconds.
+      switch (engineMode)
+      {
+         case "threads":
+            break;
+
+         case "step":
+            engine = new StepEngine(theField, workers,
+                     randomGenerator.nextLong());
+            break;
+
+         case "tiles":
+            engine = new TileEngine(theField, workers,
+                     TileEngine.DEFAULT_TILE_SIZE, randomGenerator.nextLong());
+            break;
+
+         case "bitboard":
+            engine = new BitboardEngine(theField, workers);
+            break;
+
+         case "store":
+            engine = new AgentStoreEngine(theField, workers,
+                     randomGenerator.nextLong());
+            break;
+
+         case "events":
+            engine = new EventEngine(workers, timeScale);
+            break;
+
+         default:
+            System.err.println("Unrecognized engine.");
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
+      } // switch
+
+      if (engine != null)
+      {
+         FieldOccupant.setLauncher(engine);
+
+         // Hounds still starve after milliseconds, simulated ones, under the
+         // EventEngine.
+         if (!starveTimeGiven && !(engine instanceof EventEngine))
+         {
+            starveTime = Hound.DEFAULT_STARVE_TICKS;
+         }
+      }
+
+      // Set the starve time for hounds
+      Hound.setStarveTime(starveTime);
+
+      // Randomly place a Fox, Hound, or nothing in each Cell, a block of rows
+      // at a time in parallel, then start everybody we placed.
+      new FieldPopulator(theField, startPhaser, probabilityFox,
+               probabilityHound, randomGenerator.nextLong()).populate(workers);
+
+      // Measure a headless run from the moment FieldOccupants may start.
+      if (headless)
+      {
+         report = new RunReport(theField, FieldOccupant.getLauncher());
+         report.start();
+      }
+
+      // We are ready to start, so arrive and de-register (I think this should
+      // be "unregister"...but it's not my choice) to let the waiting
+      // threads know to start.
+      startPhaser.arriveAndDeregister();
+
+      // A generation engine advances the Field on its own thread, unless
+      // we're counting generations ourselves.
+      if (engine != null && generations <= 0)
+      {
+         new Thread(engine, engine.getClass().getSimpleName()).start();
+      }
+
+      // Dump how agents contend for Cells to the error stream every so often.
+      if (metricsSeconds > 0)
+      {
+         startMetricsDump(theField, metricsSeconds);
+      }
+
+      // Run headless until we're done, report how it went and stop.
+      if (headless)
+      {
+         runHeadless(report, engine, durationSeconds, generations);
+         System.out.println(jsonReport ? report.toJson()
+                  : report + System.lineSeparator() + theField.getMetrics());
+         System.exit(0);
+      }
+
+      // If we're in graphics mode, then create the frame, canvas,
+      // and window. If not in graphics mode, these will remain null
+      if (graphicsMode && renderMode)
+      {
+         cellSize = Math.max(1, Math.min(CELL_SIZE, MAX_WINDOW
+                  / Math.max(theField.getWidth(), theField.getHeight())));
+
+         // We draw into an offscreen image which its Canvas shows.
+         imageRenderer = new ImageFieldRenderer(theField, cellSize);
+
+         windowFrame = new Frame("Foxes and Hounds");
+         windowFrame.setSize(theField.getWidth() * cellSize + 10,
+                  theField.getHeight() * cellSize + 30);
+         windowFrame.setVisible(true);
+
+         // Attach the "Canvas" we draw upon to the window.
+         drawingCanvas = imageRenderer.getCanvas();
+         drawingCanvas.setBackground(Color.white);
+         drawingCanvas.setSize(theField.getWidth() * cellSize,
+                  theField.getHeight() * cellSize);
+         windowFrame.add(drawingCanvas);
+      } // if
+
+      // Draw the Field on this thread whenever it changes, forever. We could
+      // optionally stop when the Field becomes empty that will ever arise...
+      if (renderMode)
+      {
+         // If we have a window then update the GUI, otherwise output
+         // text-based display, only redrawing what changed if we're on a
+         // terminal. Text goes straight to the file descriptor; each frame
+         // is written in one go so there's nothing for System.out to buffer.
+         if (imageRenderer != null)
+         {
+            renderer = imageRenderer;
+         }
+         else if (outputFile != null)
+         {
+            try
+            {
+               textOutput = new FileOutputStream(outputFile);
+            }
+            catch (FileNotFoundException e)
+            {
+               System.err.println("Can't write to " + outputFile + ".");
+               System.exit(1);
+               return;
+            }
+
+            renderer = new TextFieldRenderer(theField, textOutput, false);
+         }
+         else
+         {
+            textOutput = new FileOutputStream(FileDescriptor.out);
+            renderer = new TextFieldRenderer(theField, textOutput,
+                     System.console() != null);
+         }
+
+         try
+         {
+            new RenderScheduler(theField, renderer::drawFrame,
+                     framesPerSecond).run();
+         }
+         catch (UncheckedIOException e)
+         {
+            // Whoever was reading our frames has gone away.
+            System.err.println("Can't write frames: " + e.getMessage());
+            System.exit(1);
+         }
+      }
+      // Nothing to draw, so just let the FieldOccupants run.
+      else
+      {
+         while (true)
+         {
+            Thread.sleep(Long.MAX_VALUE);
+         }
+      }
+   } // main
+
+
+   /**
+    * Lets a headless Simulation run for a number of seconds or generations,
+    * whichever comes first, counting the FieldOccupants every so often.
+    *
+    * @param report
+    *           the RunReport measuring the run.
+    * @param engine
+    *           the GenerationEngine advancing the Field, or null if
+    *           FieldOccupants run on their own threads.
+    * @param durationSeconds
+    *           the most seconds to run for, or 0 for no limit.
+    * @param generations
+    *           the number of generations to step the Field through on this
+    *           thread, or 0 if it is advanced elsewhere.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting.
+    */
+   private static void runHeadless(RunReport report, GenerationEngine engine,
+            int durationSeconds, int generations) throws InterruptedException
+   {
+      long start = System.nanoTime();
+      long deadline = durationSeconds > 0
+               ? start + TimeUnit.SECONDS.toNanos(durationSeconds)
+               : Long.MAX_VALUE;
+      long nextSample = start + SAMPLE_NANOS;
+      long now;
+
+      if (generations > 0)
+      {
+         for (int i = 0; i < generations
+                  && (now = System.nanoTime()) - deadline < 0; i++)
+         {
+            if (now - nextSample >= 0)
+            {
+               report.sample();
+               nextSample = now + SAMPLE_NANOS;
+            }
+
+            engine.step();
+         }
+      }
+      else
+      {
+         while ((now = System.nanoTime()) - deadline < 0)
+         {
+            TimeUnit.NANOSECONDS.sleep(Math.min(deadline - now,
+                     nextSample - now));
+
+            if (System.nanoTime() - nextSample >= 0)
+            {
+               report.sample();
+               nextSample += SAMPLE_NANOS;
+            }
+         }
+      }
+
+      report.finish(engine == null ? 0 : engine.getGeneration());
+   } // runHeadless
+
+
+   /**
+    * Starts a daemon thread that writes the AgentMetrics of a Field to the
+    * error stream every so often, so it never gets mixed up with the text
+    * frames on standard output.
+    *
+    * @param theField
+    *           the Field whose AgentMetrics to dump.
+    * @param seconds
+    *           how many seconds to wait between dumps.
+    */
+   private static void startMetricsDump(Field theField, int seconds)
+   {
+      Thread dumper = new Thread(() ->
+      {
+         try
+         {
+            while (true)
+            {
+               TimeUnit.SECONDS.sleep(seconds);
+               System.err.println(theField.getMetrics());
+               System.err.println(theField.getLockManager());
+            }
+         }
+         catch (InterruptedException e)
+         {
+            // We were told to stop.
+         }
+      }, "MetricsDump");
+
+      dumper.setDaemon(true);
+      dumper.start();
+   } // startMetricsDump
+}
@@ -0,0 +1,352 @@
+package foxesandhounds;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+
+/**
+ * Java Flight Recorder events for what happens in a Simulation, so births,
+ * meals, starvations, lock contention and drawing can be lined up against GC
+ * and thread scheduling on one timeline. Every event is disabled unless a
+ * recording turns it on, and while disabled creating and committing one costs
+ * a flag check the JIT can usually remove altogether, so they stay in place
+ * on every hot path.
+ *
+ * Turn them on with --jfr, or in any recording through the settings below,
+ * e.g. foxesandhounds.FoxBirth#enabled=true.
+ */
+public final class SimulationEvents
+{
+   /**
+    * SimulationEvents only holds event types and static helpers.
+    */
+   private SimulationEvents()
+   {
+   }
+
+
+   /**
+    * A Fox gave birth.
+    */
+   @Name("foxesandhounds.FoxBirth")
+   @Label("Fox Birth")
+   @Category({ "Foxes and Hounds", "Agents" })
+   @Enabled(false)
+   @StackTrace(false)
+   public static class FoxBirth extends Event
+   {
+      @Label("Agent Id")
+      public long agentId;
+
+      @Label("X")
+      @Description("Where the new Fox was born")
+      public int  x;
+
+      @Label("Y")
+      @Description("Where the new Fox was born")
+      public int  y;
+
+      @Label("Latency")
+      @Description("From the Fox waking up to the birth, 0 under a TileEngine")
+      @Timespan(Timespan.NANOSECONDS)
+      public long latency;
+   }
+
+
+   /**
+    * A Hound ate a Fox.
+    */
+   @Name("foxesandhounds.HoundEat")
+   @Label("Hound Eat")
+   @Category({ "Foxes and Hounds", "Agents" })
+   @Enabled(false)
+   @StackTrace(false)
+   public static class HoundEat extends Event
+   {
+      @Label("Agent Id")
+      public long agentId;
+
+      @Label("X")
+      @Description("Where the Fox was eaten")
+      public int  x;
+
+      @Label("Y")
+      @Description("Where the Fox was eaten")
+      public int  y;
+
+      @Label("Latency")
+      @Description("From the Hound waking up to the meal, 0 under a TileEngine")
+      @Timespan(Timespan.NANOSECONDS)
+      public long latency;
+   }
+
+
+   /**
+    * A Hound was born where a Fox was eaten.
+    */
+   @Name("foxesandhounds.HoundBirth")
+   @Label("Hound Birth")
+   @Category({ "Foxes and Hounds", "Agents" })
+   @Enabled(false)
+   @StackTrace(false)
+   public static class HoundBirth extends Event
+   {
+      @Label("Agent Id")
+      @Description("The Hound that ate the Fox")
+      public long agentId;
+
+      @Label("Newborn Id")
+      public long newbornId;
+
+      @Label("X")
+      public int  x;
+
+      @Label("Y")
+      public int  y;
+   }
+
+
+   /**
+    * A Hound starved.
+    */
+   @Name("foxesandhounds.HoundStarvation")
+   @Label("Hound Starvation")
+   @Category({ "Foxes and Hounds", "Agents" })
+   @Enabled(false)
+   @StackTrace(false)
+   public static class HoundStarvation extends Event
+   {
+      @Label("Agent Id")
+      public long agentId;
+
+      @Label("X")
+      public int  x;
+
+      @Label("Y")
+      public int  y;
+   }
+
+
+   /**
+    * Somebody waited to lock Cells of the Field. Only waits longer than the
+    * threshold are recorded, which leaves out locks that were free.
+    */
+   @Name("foxesandhounds.CellLockContention")
+   @Label("Cell Lock Contention")
+   @Category({ "Foxes and Hounds", "Field" })
+   @Enabled(false)
+   @Threshold("20 us")
+   public static class CellLockContention extends Event
+   {
+      @Label("Agent Id")
+      @Description("The FieldOccupant locking, or 0 for anybody else")
+      public long    agentId;
+
+      @Label("X")
+      @Description("The first Cell locked")
+      public int     x;
+
+      @Label("Y")
+      @Description("The first Cell locked")
+      public int     y;
+
+      @Label("Cells")
+      public int     cells;
+
+      @Label("Acquired")
+      @Description("False if the Cells were too busy and we gave up")
+      public boolean acquired;
+   }
+
+
+   /**
+    * A frame of the Field was drawn.
+    */
+   @Name("foxesandhounds.FrameRender")
+   @Label("Frame Render")
+   @Category({ "Foxes and Hounds", "Rendering" })
+   @Enabled(false)
+   @StackTrace(false)
+   public static class FrameRender extends Event
+   {
+      @Label("Frame")
+      public long frame;
+   }
+
+
+   /**
+    * Commits a FoxBirth event if they are enabled.
+    *
+    * @param parent
+    *           the Fox that gave birth.
+    * @param x
+    *           the x-coordinate of the new Fox.
+    * @param y
+    *           the y-coordinate of the new Fox.
+    * @param latency
+    *           nanoseconds from the Fox waking up to the birth.
+    */
+   static void foxBirth(Fox parent, int x, int y, long latency)
+   {
+      FoxBirth event = new FoxBirth();
+
+      if (event.shouldCommit())
+      {
+         event.agentId = parent.getId();
+         event.x = x;
+         event.y = y;
+         event.latency = latency;
+         event.commit();
+      }
+   } // foxBirth
+
+
+   /**
+    * Commits a HoundEat event if they are enabled.
+    *
+    * @param hound
+    *           the Hound that ate.
+    * @param x
+    *           the x-coordinate of the Fox eaten.
+    * @param y
+    *           the y-coordinate of the Fox eaten.
+    * @param latency
+    *           nanoseconds from the Hound waking up to the meal.
+    */
+   static void houndEat(Hound hound, int x, int y, long latency)
+   {
+      HoundEat event = new HoundEat();
+
+      if (event.shouldCommit())
+      {
+         event.agentId = hound.getId();
+         event.x = x;
+         event.y = y;
+         event.latency = latency;
+         event.commit();
+      }
+   } // houndEat
+
+
+   /**
+    * Commits a HoundBirth event if they are enabled.
+    *
+    * @param parent
+    *           the Hound that ate the Fox.
+    * @param newborn
+    *           the new Hound.
+    */
+   static void houndBirth(Hound parent, Hound newborn)
+   {
+      HoundBirth event = new HoundBirth();
+
+      if (event.shouldCommit())
+      {
+         event.agentId = parent.getId();
+         event.newbornId = newborn.getId();
+         event.x = newborn.getRow();
+         event.y = newborn.getCol();
+         event.commit();
+      }
+   } // houndBirth
+
+
+   /**
+    * Commits a HoundStarvation event if they are enabled.
+    *
+    * @param hound
+    *           the Hound that starved.
+    */
+   static void houndStarvation(Hound hound)
+   {
+      HoundStarvation event = new HoundStarvation();
+
+      if (event.shouldCommit())
+      {
+         event.agentId = hound.getId();
+         event.x = hound.getRow();
+         event.y = hound.getCol();
+         event.commit();
+      }
+   } // houndStarvation
+
+
+   /**
+    * Commits a CellLockContention event if they are enabled and we waited
+    * long enough for it to be recorded.
+    *
+    * @param event
+    *           the event, begun before we started waiting and ended once we
+    *           stopped.
+    * @param agentId
+    *           the id of the FieldOccupant locking, or 0.
+    * @param x
+    *           the x-coordinate of the first Cell locked.
+    * @param y
+    *           the y-coordinate of the first Cell locked.
+    * @param cells
+    *           the number of Cells locked.
+    * @param acquired
+    *           true if the Cells were locked.
+    */
+   static void cellLockContention(CellLockContention event, long agentId,
+            int x, int y, int cells, boolean acquired)
+   {
+      if (event.shouldCommit())
+      {
+         event.agentId = agentId;
+         event.x = x;
+         event.y = y;
+         event.cells = cells;
+         event.acquired = acquired;
+         event.commit();
+      }
+   } // cellLockContention
+
+
+   /**
+    * Starts a recording with the JDK's default, low overhead, settings plus
+    * every event above, written to a file when the JVM exits.
+    *
+    * @param destination
+    *           the file to write the recording to.
+    * @return the recording, already started.
+    * @throws IOException
+    *            if the recording can't be set up.
+    * @throws ParseException
+    *            if the JDK's default settings can't be read.
+    */
+   public static Recording startRecording(Path destination)
+            throws IOException, ParseException
+   {
+      Recording recording = new Recording(
+               Configuration.getConfiguration("default"));
+
+      recording.setName("Foxes and Hounds");
+      recording.enable(FoxBirth.class);
+      recording.enable(HoundEat.class);
+      recording.enable(HoundBirth.class);
+      recording.enable(HoundStarvation.class);
+      recording.enable(CellLockContention.class);
+      recording.enable(FrameRender.class);
+      recording.setDestination(destination);
+      recording.setToDisk(true);
+      recording.setDumpOnExit(true);
+      recording.start();
+
+      return recording;
+   } // startRecording
+}
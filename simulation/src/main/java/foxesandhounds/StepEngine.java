@@ -0,0 +1,258 @@
+package foxesandhounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Advances a Field in discrete generations instead of letting every
+ * FieldOccupant run freely on its own thread. Each generation every
+ * FieldOccupant that was on the Field when the generation began gets one call
+ * to step().
+ *
+ * The Field is split into horizontal bands of at least MIN_BAND_HEIGHT rows
+ * and a fixed pool of workers steps the even bands in parallel, then the odd
+ * bands. Nothing a FieldOccupant does reaches further than two Cells away, so
+ * two bands of the same parity never touch the same Cells and each generation
+ * is the same no matter how the workers are scheduled.
+ */
+public class StepEngine implements GenerationEngine
+{
+   /**
+    * Creates a new StepEngine.
+    *
+    * @param theField
+    *           the Field to advance.
+    * @param workers
+    *           the number of worker threads to step bands with.
+    * @param seed
+    *           the seed every generation's randomness is derived from.
+    */
+   public StepEngine(Field theField, int workers, long seed)
+   {
+      int height = theField.getHeight();
+      int bands = Math.min(height / MIN_BAND_HEIGHT, workers * 2);
+
+      // We need an even number of bands so the last band and the first band
+      // (which are neighbors on the torus) have different parities.
+      bands -= bands % 2;
+      bands = Math.max(bands, 1);
+
+      p_theField = theField;
+      p_seed = seed;
+      p_pool = Executors.newFixedThreadPool(workers);
+      p_snapshotTasks = new ArrayList<>(bands);
+      p_evenTasks = new ArrayList<>(bands / 2 + 1);
+      p_oddTasks = new ArrayList<>(bands / 2);
+
+      for (int i = 0; i < bands; i++)
+      {
+         Band band = new Band(i, i * height / bands,
+                  (i + 1) * height / bands);
+
+         p_snapshotTasks.add(band.p_snapshot);
+         (i % 2 == 0 ? p_evenTasks : p_oddTasks).add(band.p_step);
+      }
+   } // StepEngine
+
+
+   /**
+    * FieldOccupants don't run on their own under a StepEngine; they are found
+    * on the Field at the start of each generation instead.
+    *
+    * @param occupant
+    *           the FieldOccupant that was placed on the Field.
+    */
+   @Override
+   public void launch(FieldOccupant occupant)
+   {
+      // Nothing to do, the next generation will pick it up.
+   } // launch
+
+
+   /**
+    * Advances the Field one generation at a time until interrupted.
+    */
+   @Override
+   public void run()
+   {
+      try
+      {
+         while (!Thread.currentThread().isInterrupted())
+         {
+            step();
+         }
+      }
+      catch (InterruptedException e)
+      {
+         // We were told to stop.
+      }
+      finally
+      {
+         p_pool.shutdownNow();
+      }
+   } // run
+
+
+   /**
+    * Advances the Field by one generation.
+    *
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for the workers.
+    */
+   @Override
+   public void step() throws InterruptedException
+   {
+      // Find out who is on the Field before anybody moves so newborns wait
+      // for the next generation.
+      invokeAll(p_snapshotTasks);
+      invokeAll(p_evenTasks);
+      invokeAll(p_oddTasks);
+
+      p_generation++;
+   } // step
+
+
+   /**
+    * Returns the number of generations this StepEngine has completed.
+    *
+    * @return the number of generations completed.
+    */
+   @Override
+   public long getGeneration()
+   {
+      return p_generation;
+   } // getGeneration
+
+
+   /**
+    * Runs a set of band tasks on the worker pool and waits for all of them.
+    *
+    * @param tasks
+    *           the tasks to run.
+    * @throws InterruptedException
+    *            if we are interrupted while waiting for the workers.
+    */
+   private void invokeAll(List<Callable<Void>> tasks)
+            throws InterruptedException
+   {
+      for (Future<Void> result : p_pool.invokeAll(tasks))
+      {
+         try
+         {
+            result.get();
+         }
+         catch (ExecutionException e)
+         {
+            throw new IllegalStateException("A band failed to step.",
+                     e.getCause());
+         }
+      }
+   } // invokeAll
+
+
+   /**
+    * A horizontal band of rows of the Field, stepped by one worker at a time.
+    */
+   private class Band
+   {
+      /**
+       * Creates a new Band.
+       *
+       * @param index
+       *           the index of this Band.
+       * @param firstRow
+       *           the first row (y-coordinate) in this Band.
+       * @param endRow
+       *           one past the last row (y-coordinate) in this Band.
+       */
+      Band(int index, int firstRow, int endRow)
+      {
+         p_index = index;
+         p_firstRow = firstRow;
+         p_endRow = endRow;
+      }
+
+
+      /**
+       * Remembers every FieldOccupant in this Band.
+       *
+       * @return nothing.
+       */
+      private Void snapshot()
+      {
+         FieldOccupant occupant;
+
+         p_occupants.clear();
+
+         for (int y = p_firstRow; y < p_endRow; y++)
+         {
+            for (int x = 0; x < p_theField.getWidth(); x++)
+            {
+               occupant = p_theField.getOccupantAt(x, y);
+
+               if (occupant != null)
+               {
+                  p_occupants.add(occupant);
+               }
+            }
+         }
+
+         return null;
+      } // snapshot
+
+
+      /**
+       * Steps every FieldOccupant that is still alive in this Band.
+       *
+       * @return nothing.
+       * @throws InterruptedException
+       *            if we are interrupted while waiting to lock Cells.
+       */
+      private Void step() throws InterruptedException
+      {
+         // Every Band and generation gets its own stream of randomness so the
+         // result doesn't depend on which worker ran us.
+         SplittableRandom r = new SplittableRandom(
+                  p_seed ^ (p_generation * GENERATION_MIX + p_index));
+
+         for (FieldOccupant occupant : p_occupants)
+         {
+            if (!occupant.isInterrupted())
+            {
+               occupant.step(r);
+            }
+         }
+
+         return null;
+      } // step
+
+      private final int                 p_index;
+      private final int                 p_firstRow;
+      private final int                 p_endRow;
+      private final List<FieldOccupant> p_occupants = new ArrayList<>();
+      private final Callable<Void>      p_snapshot  = this::snapshot;
+      private final Callable<Void>      p_step      = this::step;
+   }
+
+   // Nothing a FieldOccupant does reaches more than two Cells away, so bands
+   // of five rows keep two bands of the same parity from touching.
+   public static final int            MIN_BAND_HEIGHT = 5;
+
+   // Odd constant used to spread generations across seeds
+   private static final long          GENERATION_MIX  = 0x9E3779B97F4A7C15L;
+
+   private final Field                p_theField;
+   private final long                 p_seed;
+   private final ExecutorService      p_pool;
+   private final List<Callable<Void>> p_snapshotTasks;
+   private final List<Callable<Void>> p_evenTasks;
+   private final List<Callable<Void>> p_oddTasks;
+   private volatile long              p_generation;
+}
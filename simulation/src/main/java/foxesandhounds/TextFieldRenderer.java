@@ -0,0 +1,256 @@
+package foxesandhounds;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+
+/**
+ * Draws a Field as text, one character per Cell separated by '|'. On a
+ * terminal that understands ANSI escape codes, only the first frame is drawn
+ * in full; after that the cursor is moved to each Cell that changed and just
+ * that Cell is redrawn.
+ *
+ * Each frame is built in one reusable byte buffer and handed to the output in
+ * a single write, so drawing costs one system call per frame however large the
+ * Field is. The borders of a full frame never change and are laid out once;
+ * each frame only fills in the Cells.
+ */
+public class TextFieldRenderer implements FieldRenderer, CellVisitor
+{
+   /**
+    * Creates a new TextFieldRenderer.
+    *
+    * @param theField
+    *           the Field to draw.
+    * @param out
+    *           where to draw the Field, e.g. standard output, a file or a pipe.
+    *           It should not be buffered, each frame is already written in one
+    *           go.
+    * @param ansi
+    *           true to redraw only the Cells that changed using ANSI cursor
+    *           positioning, false to print every frame in full.
+    */
+   public TextFieldRenderer(Field theField, OutputStream out, boolean ansi)
+   {
+      byte[] prefix = ansi ? CLEAR_SCREEN : new byte[0];
+      int lineLength = theField.getWidth() * 2 + 2;
+
+      p_theField = theField;
+      p_out = out;
+      p_ansi = ansi;
+      p_lineLength = lineLength;
+      p_frameStart = prefix.length;
+
+      // Lay out the clear screen, borders and line breaks of a full frame.
+      p_frame = new byte[prefix.length
+               + lineLength * (theField.getHeight() + 2)];
+      System.arraycopy(prefix, 0, p_frame, 0, prefix.length);
+
+      for (int line = 0; line < theField.getHeight() + 2; line++)
+      {
+         int start = p_frameStart + line * lineLength;
+         boolean border = line == 0 || line == theField.getHeight() + 1;
+
+         for (int i = 0; i < lineLength - 1; i++)
+         {
+            p_frame[start + i] = border ? (byte) '-'
+                     : (i % 2 == 0) ? (byte) '|' : (byte) ' ';
+         }
+         p_frame[start + lineLength - 1] = '\n';
+      }
+   } // TextFieldRenderer
+
+
+   /**
+    * Draws the current state of the Field.
+    *
+    * @throws UncheckedIOException
+    *            if the frame could not be written, e.g. the pipe was closed.
+    */
+   @Override
+   public void drawFrame()
+   {
+      try
+      {
+         if (p_ansi && p_drawnOnce)
+         {
+            drawChanges();
+         }
+         else
+         {
+            drawAll();
+         }
+      }
+      catch (IOException e)
+      {
+         throw new UncheckedIOException(e);
+      }
+   } // drawFrame
+
+
+   /**
+    * Moves the cursor to a Cell that changed and redraws it.
+    *
+    * @param x
+    *           is the x-coordinate of the Cell to draw.
+    * @param y
+    *           is the y-coordinate of the Cell to draw.
+    */
+   @Override
+   public void visit(int x, int y)
+   {
+      // Row 1 is the line above the Field and column 1 is the first '|'.
+      append(ESCAPE);
+      append('[');
+      append(y + 2);
+      append(';');
+      append(x * 2 + 2);
+      append('H');
+      append((char) symbolAt(x, y));
+   } // visit
+
+
+   /**
+    * Redraws just the Cells that changed since the last frame.
+    *
+    * @throws IOException
+    *            if the changes could not be written.
+    */
+   private void drawChanges() throws IOException
+   {
+      p_changesLength = 0;
+      p_theField.drainDirtyCells(this);
+
+      if (p_changesLength > 0)
+      {
+         // Leave the cursor below the Field.
+         append(ESCAPE);
+         append('[');
+         append(p_theField.getHeight() + 3);
+         append(';');
+         append('1');
+         append('H');
+
+         p_out.write(p_changes, 0, p_changesLength);
+         p_out.flush();
+      }
+   } // drawChanges
+
+
+   /**
+    * Draws every Cell of the Field.
+    *
+    * @throws IOException
+    *            if the frame could not be written.
+    */
+   private void drawAll() throws IOException
+   {
+      // Forget what changed before we start, anything that changes while we
+      // draw will be redrawn next frame.
+      p_theField.clearDirtyCells();
+
+      // Fill in each Cell; the borders are already in place.
+      for (int y = 0; y < p_theField.getHeight(); y++)
+      {
+         int start = p_frameStart + (y + 1) * p_lineLength + 1;
+
+         for (int x = 0; x < p_theField.getWidth(); x++)
+         {
+            p_frame[start + x * 2] = symbolAt(x, y);
+         }
+      }
+
+      p_out.write(p_frame);
+      p_out.flush();
+
+      p_drawnOnce = true;
+   } // drawAll
+
+
+   /**
+    * Adds a character to the changes we're building, growing the buffer if
+    * it's full.
+    *
+    * @param c
+    *           the character to add, which must be ASCII.
+    */
+   private void append(char c)
+   {
+      if (p_changesLength == p_changes.length)
+      {
+         p_changes = Arrays.copyOf(p_changes, p_changes.length * 2);
+      }
+
+      p_changes[p_changesLength++] = (byte) c;
+   } // append
+
+
+   /**
+    * Adds a number in decimal to the changes we're building.
+    *
+    * @param n
+    *           the number to add, which must not be negative.
+    */
+   private void append(int n)
+   {
+      int digits = 1;
+
+      for (int rest = n / 10; rest > 0; rest /= 10)
+      {
+         digits *= 10;
+      }
+
+      for (; digits > 0; digits /= 10)
+      {
+         append((char) ('0' + n / digits % 10));
+      }
+   } // append
+
+
+   /**
+    * Returns the character to show for the Cell at the coordinates provided.
+    *
+    * @param x
+    *           is the x-coordinate of the Cell.
+    * @param y
+    *           is the y-coordinate of the Cell.
+    * @return the character to show for the Cell.
+    */
+   private byte symbolAt(int x, int y)
+   {
+      switch (p_theField.getSpeciesAt(x, y))
+      {
+         case Field.FOX:
+            return 'F';
+
+         case Field.HOUND:
+            return 'H';
+
+         default:
+            return ' ';
+      }
+   } // symbolAt
+
+   // Starts an ANSI escape sequence
+   private static final char    ESCAPE       = '\u001b';
+
+   // Clears the screen and moves the cursor to the top
+   private static final byte[]  CLEAR_SCREEN = { ESCAPE, '[', '2', 'J',
+            ESCAPE, '[', 'H' };
+
+   private final Field          p_theField;
+   private final OutputStream   p_out;
+   private final boolean        p_ansi;
+
+   // A full frame, with borders laid out and Cells filled in each frame
+   private final byte[]         p_frame;
+   private final int            p_frameStart;
+   private final int            p_lineLength;
+
+   // The Cells that changed, as ANSI cursor moves and symbols
+   private byte[]               p_changes    = new byte[4096];
+   private int                  p_changesLength;
+   private boolean              p_drawnOnce;
+}
@@ -0,0 +1,136 @@
+package foxesandhounds;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Launches each FieldOccupant on its own thread, taken from a ThreadFactory.
+ * The factory decides whether those threads are platform or virtual threads.
+ */
+public class ThreadLauncher implements AgentLauncher
+{
+   /**
+    * Creates a new ThreadLauncher.
+    * 
+    * @param threadFactory
+    *           the ThreadFactory to create threads for FieldOccupants with.
+    */
+   public ThreadLauncher(ThreadFactory threadFactory)
+   {
+      p_threadFactory = threadFactory;
+   }
+
+
+   /**
+    * Creates a thread for the FieldOccupant and starts it.
+    * 
+    * @param occupant
+    *           the FieldOccupant to start.
+    */
+   @Override
+   public void launch(FieldOccupant occupant)
+   {
+      Thread thread = p_threadFactory.newThread(() ->
+      {
+         try
+         {
+            occupant.run();
+         }
+         finally
+         {
+            p_running.decrement();
+         }
+      });
+
+      // Let the FieldOccupant know its thread so it can be interrupted if it
+      // is removed from the Field.
+      occupant.setThread(thread);
+      p_started.increment();
+      p_running.increment();
+      thread.start();
+   } // launch
+
+
+   /**
+    * Unparks the thread of an idle FieldOccupant.
+    * 
+    * @param occupant
+    *           the FieldOccupant to wake.
+    */
+   @Override
+   public void wakeUp(FieldOccupant occupant)
+   {
+      occupant.unpark();
+   } // wakeUp
+
+
+   /**
+    * Returns the number of threads started for FieldOccupants so far.
+    * 
+    * @return the number of threads started.
+    */
+   public long getStarted()
+   {
+      return p_started.sum();
+   } // getStarted
+
+
+   /**
+    * Returns the number of threads started for FieldOccupants that are still
+    * running.
+    * 
+    * @return the number of threads running.
+    */
+   public long getRunning()
+   {
+      return p_running.sum();
+   } // getRunning
+
+
+   /**
+    * Returns a ThreadLauncher that runs each FieldOccupant on a platform
+    * thread.
+    * 
+    * @return a ThreadLauncher for platform threads.
+    */
+   public static ThreadLauncher newPlatformThreadLauncher()
+   {
+      return new ThreadLauncher(Thread::new);
+   } // newPlatformThreadLauncher
+
+
+   /**
+    * Returns a ThreadLauncher that runs each FieldOccupant on a virtual thread.
+    * Virtual threads are looked up reflectively so we still compile and run on
+    * JVMs older than 21.
+    * 
+    * @return a ThreadLauncher for virtual threads.
+    * @throws UnsupportedOperationException
+    *            if this JVM does not support virtual threads.
+    */
+   public static ThreadLauncher newVirtualThreadLauncher()
+   {
+      try
+      {
+         // Thread.ofVirtual().factory() gives us a thread-safe factory, unlike
+         // the builder itself.
+         Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+         return new ThreadLauncher((ThreadFactory) Class
+                  .forName("java.lang.Thread$Builder").getMethod("factory")
+                  .invoke(builder));
+      }
+      catch (ClassNotFoundException | NoSuchMethodException
+               | IllegalAccessException | InvocationTargetException e)
+      {
+         throw new UnsupportedOperationException(
+                  "Virtual threads require Java 21 or later.", e);
+      }
+   } // newVirtualThreadLauncher
+
+   private final ThreadFactory p_threadFactory;
+   private final LongAdder     p_started = new LongAdder();
+   private final LongAdder     p_running = new LongAdder();
+}
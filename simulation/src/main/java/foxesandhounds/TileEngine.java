@@ -0,0 +1,382 @@
+package foxesandhounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Advances a Field in discrete generations by splitting it into square tiles
+ * that are processed as ForkJoinPool tasks, without locking a single Cell.
+ *
+ * Each generation has three phases, and every tile finishes one before any
+ * tile starts the next:
+ *
+ * 1. Propose: every FieldOccupant looks at the Field, which nobody changes
+ * during this phase, and claims the one Cell it needs (the foxhole or the Fox
+ * to eat) with a random priority. Claims are kept per Cell and the highest
+ * priority wins, so reading and claiming across tile edges, and around the
+ * edges of the torus, needs no halo copy and no lock.
+ *
+ * 2. Commit: each tile carries out the winning claim on each of its own Cells.
+ * Only the tile owning a Cell ever writes it in this phase.
+ *
+ * 3. Age: each tile lets the FieldOccupants it found in phase 1 get hungrier,
+ * and removes those that starved from its own Cells.
+ *
+ * Every FieldOccupant acts on the Field as it was when the generation began,
+ * so a Fox that is eaten may still give birth in the same generation. Each
+ * tile and generation has its own stream of randomness and ties are broken by
+ * position, so the result doesn't depend on how the tasks are scheduled.
+ */
+public class TileEngine implements GenerationEngine
+{
+   /**
+    * Creates a new TileEngine.
+    *
+    * @param theField
+    *           the Field to advance.
+    * @param workers
+    *           the parallelism of the ForkJoinPool processing tiles.
+    * @param tileSize
+    *           the width and height of a tile, in Cells.
+    * @param seed
+    *           the seed every generation's randomness is derived from.
+    */
+   public TileEngine(Field theField, int workers, int tileSize, long seed)
+   {
+      int width = theField.getWidth();
+      int height = theField.getHeight();
+      int across = (width + tileSize - 1) / tileSize;
+      int down = (height + tileSize - 1) / tileSize;
+
+      p_theField = theField;
+      p_seed = seed;
+      p_pool = new ForkJoinPool(workers);
+      p_claims = new AtomicLongArray(width * height);
+      p_slotBits = Integer.SIZE
+               - Integer.numberOfLeadingZeros(tileSize * tileSize - 1);
+      p_tiles = new Tile[across * down];
+
+      // A claim names the winner by its tile and its place in that tile, and
+      // both have to fit in the low half of the claim.
+      if ((long) p_tiles.length << p_slotBits > 1L << Integer.SIZE)
+      {
+         throw new IllegalArgumentException("Too many tiles of size "
+                  + tileSize + " for a " + width + " x " + height
+                  + " Field.");
+      }
+
+      for (int i = 0; i < p_tiles.length; i++)
+      {
+         int tileX = i % across * tileSize;
+         int tileY = i / across * tileSize;
+
+         p_tiles[i] = new Tile(i, tileX, Math.min(tileX + tileSize, width),
+                  tileY, Math.min(tileY + tileSize, height));
+      }
+   } // TileEngine
+
+
+   /**
+    * FieldOccupants don't run on their own under a TileEngine; they are found
+    * on the Field at the start of each generation instead.
+    *
+    * @param occupant
+    *           the FieldOccupant that was placed on the Field.
+    */
+   @Override
+   public void launch(FieldOccupant occupant)
+   {
+      // Nothing to do, the next generation will pick it up.
+   } // launch
+
+
+   /**
+    * Advances the Field one generation at a time until interrupted.
+    */
+   @Override
+   public void run()
+   {
+      try
+      {
+         while (!Thread.currentThread().isInterrupted())
+         {
+            step();
+         }
+      }
+      finally
+      {
+         p_pool.shutdownNow();
+      }
+   } // run
+
+
+   /**
+    * Advances the Field by one generation.
+    */
+   @Override
+   public void step()
+   {
+      p_pool.invoke(new Phase(PROPOSE, 0, p_tiles.length));
+      p_pool.invoke(new Phase(COMMIT, 0, p_tiles.length));
+      p_pool.invoke(new Phase(AGE, 0, p_tiles.length));
+
+      p_generation++;
+   } // step
+
+
+   /**
+    * Returns the number of generations this TileEngine has completed.
+    *
+    * @return the number of generations completed.
+    */
+   @Override
+   public long getGeneration()
+   {
+      return p_generation;
+   } // getGeneration
+
+
+   /**
+    * Claims a Cell for a FieldOccupant, unless somebody already claimed it
+    * with a higher priority.
+    *
+    * @param target
+    *           the index of the Cell to claim.
+    * @param claim
+    *           the priority in the high half and the claimant in the low half.
+    */
+   private void claim(int target, long claim)
+   {
+      long current = p_claims.get(target);
+
+      while (current < claim && !p_claims.compareAndSet(target, current, claim))
+      {
+         current = p_claims.get(target);
+      }
+   } // claim
+
+
+   /**
+    * Returns the FieldOccupant that made a claim.
+    *
+    * @param claim
+    *           the claim.
+    * @return the FieldOccupant that made the claim.
+    */
+   private FieldOccupant getClaimant(long claim)
+   {
+      int claimant = (int) claim;
+      int slot = claimant & ((1 << p_slotBits) - 1);
+
+      return p_tiles[claimant >>> p_slotBits].p_occupants.get(slot);
+   } // getClaimant
+
+
+   /**
+    * Runs one phase of a generation over a range of tiles, splitting the range
+    * in half until each task has a single tile.
+    */
+   private class Phase extends RecursiveAction
+   {
+      /**
+       * Creates a new Phase.
+       *
+       * @param phase
+       *           PROPOSE, COMMIT or AGE.
+       * @param firstTile
+       *           the index of the first tile to process.
+       * @param endTile
+       *           one past the index of the last tile to process.
+       */
+      Phase(int phase, int firstTile, int endTile)
+      {
+         p_phase = phase;
+         p_firstTile = firstTile;
+         p_endTile = endTile;
+      }
+
+
+      /**
+       * Processes our tiles, or splits them between two new tasks.
+       */
+      @Override
+      protected void compute()
+      {
+         int middle;
+
+         if (p_endTile - p_firstTile > 1)
+         {
+            middle = (p_firstTile + p_endTile) >>> 1;
+            invokeAll(new Phase(p_phase, p_firstTile, middle),
+                     new Phase(p_phase, middle, p_endTile));
+         }
+         else if (p_phase == PROPOSE)
+         {
+            p_tiles[p_firstTile].propose();
+         }
+         else if (p_phase == COMMIT)
+         {
+            p_tiles[p_firstTile].commit();
+         }
+         else
+         {
+            p_tiles[p_firstTile].age();
+         }
+      } // compute
+
+      private static final long serialVersionUID = 1L;
+
+      private final int         p_phase;
+      private final int         p_firstTile;
+      private final int         p_endTile;
+   }
+
+
+   /**
+    * A rectangle of Cells of the Field, processed by one task at a time.
+    */
+   private class Tile
+   {
+      /**
+       * Creates a new Tile.
+       *
+       * @param index
+       *           the index of this Tile.
+       * @param firstX
+       *           the first x-coordinate in this Tile.
+       * @param endX
+       *           one past the last x-coordinate in this Tile.
+       * @param firstY
+       *           the first y-coordinate in this Tile.
+       * @param endY
+       *           one past the last y-coordinate in this Tile.
+       */
+      Tile(int index, int firstX, int endX, int firstY, int endY)
+      {
+         p_index = index;
+         p_firstX = firstX;
+         p_endX = endX;
+         p_firstY = firstY;
+         p_endY = endY;
+      }
+
+
+      /**
+       * Remembers every FieldOccupant in this Tile and lets each claim the
+       * Cell it wants.
+       */
+      private void propose()
+      {
+         FieldOccupant occupant;
+         SplittableRandom r;
+         int target;
+
+         // Every Tile and generation gets its own stream of randomness so the
+         // result doesn't depend on which worker ran us.
+         r = new SplittableRandom(
+                  p_seed ^ (p_generation * GENERATION_MIX + p_index));
+         p_occupants.clear();
+
+         for (int y = p_firstY; y < p_endY; y++)
+         {
+            for (int x = p_firstX; x < p_endX; x++)
+            {
+               occupant = p_theField.getOccupantAt(x, y);
+
+               if (occupant == null)
+               {
+                  continue;
+               }
+
+               p_occupants.add(occupant);
+               target = occupant.propose(r);
+
+               // Priorities start at 1 so an unclaimed Cell is always 0.
+               if (target != FieldOccupant.NO_PROPOSAL)
+               {
+                  claim(target, (long) (1 + r.nextInt(MAX_PRIORITY))
+                           << Integer.SIZE
+                           | (long) p_index << p_slotBits
+                           | p_occupants.size() - 1);
+               }
+            }
+         }
+      } // propose
+
+
+      /**
+       * Carries out the winning claim on each Cell of this Tile, and clears
+       * the claims for the next generation.
+       */
+      private void commit()
+      {
+         long claim;
+         int index;
+
+         for (int y = p_firstY; y < p_endY; y++)
+         {
+            for (int x = p_firstX; x < p_endX; x++)
+            {
+               index = p_theField.indexOf(x, y);
+               claim = p_claims.get(index);
+
+               if (claim != 0)
+               {
+                  p_claims.set(index, 0);
+                  getClaimant(claim).commit(index);
+               }
+            }
+         }
+      } // commit
+
+
+      /**
+       * Ages every FieldOccupant found in this Tile that is still alive.
+       */
+      private void age()
+      {
+         for (FieldOccupant occupant : p_occupants)
+         {
+            if (!occupant.isInterrupted())
+            {
+               occupant.age();
+            }
+         }
+      } // age
+
+      private final int                 p_index;
+      private final int                 p_firstX;
+      private final int                 p_endX;
+      private final int                 p_firstY;
+      private final int                 p_endY;
+      private final List<FieldOccupant> p_occupants = new ArrayList<>();
+   }
+
+   // Tiles this wide and high keep a claim small enough to fit beside its
+   // priority on all but enormous Fields
+   public static final int        DEFAULT_TILE_SIZE = 64;
+
+   // The phases of a generation
+   private static final int       PROPOSE           = 0;
+   private static final int       COMMIT            = 1;
+   private static final int       AGE               = 2;
+
+   // Claims get a priority below this
+   private static final int       MAX_PRIORITY      = Integer.MAX_VALUE;
+
+   // Odd constant used to spread generations across seeds
+   private static final long      GENERATION_MIX    = 0x9E3779B97F4A7C15L;
+
+   private final Field            p_theField;
+   private final long             p_seed;
+   private final ForkJoinPool     p_pool;
+   private final AtomicLongArray  p_claims;
+   private final int              p_slotBits;
+   private final Tile[]           p_tiles;
+   private volatile long          p_generation;
+}
@@ -0,0 +1,207 @@
+package foxesandhounds;
+
+import java.util.List;
+
+
+/**
+ * Keeps pending Wakeups on a hierarchical timing wheel, on simulated time
+ * counted in ticks. Each level of the wheel has SLOTS slots; a slot of the
+ * lowest level holds the Wakeups due on one tick, and a slot of each level
+ * above spans a whole turn of the level below. A Wakeup is filed in the lowest
+ * level whose current turn it falls in, and is moved down a level each time
+ * the level below starts the turn it is due in, so scheduling and advancing
+ * are O(1) however many Wakeups are pending.
+ *
+ * A TimingWheel is not thread safe; one thread schedules and advances it.
+ */
+public class TimingWheel
+{
+   /**
+    * Creates an empty TimingWheel at tick 0.
+    */
+   public TimingWheel()
+   {
+      p_slots = new Wakeup[LEVELS][SLOTS];
+   } // TimingWheel
+
+
+   /**
+    * Returns the current tick. Every Wakeup due by now has been handed out.
+    *
+    * @return the current tick.
+    */
+   public long getTime()
+   {
+      return p_time;
+   } // getTime
+
+
+   /**
+    * Returns the number of Wakeups waiting to come due.
+    *
+    * @return the number of pending Wakeups.
+    */
+   public int size()
+   {
+      return p_size;
+   } // size
+
+
+   /**
+    * Files a Wakeup to come due a number of ticks from now.
+    *
+    * @param wakeup
+    *           the Wakeup, which must not be pending already.
+    * @param delay
+    *           how many ticks from now it is due; at least 1 and less than
+    *           SPAN.
+    * @throws IllegalArgumentException
+    *            if the delay is out of range.
+    */
+   public void schedule(Wakeup wakeup, long delay)
+   {
+      if (delay < 1 || delay >= SPAN)
+      {
+         throw new IllegalArgumentException("Can't schedule a wakeup " + delay
+                  + " ticks ahead.");
+      }
+
+      wakeup.p_due = p_time + delay;
+      file(wakeup);
+      p_size++;
+   } // schedule
+
+
+   /**
+    * Moves on to the next tick and hands out every Wakeup due on it.
+    *
+    * @param due
+    *           the list to add the Wakeups now due to.
+    */
+   public void advance(List<Wakeup> due)
+   {
+      Wakeup wakeup;
+      Wakeup next;
+      int slot;
+
+      p_time++;
+
+      // Whenever a level starts a new turn, move the Wakeups in the slot of
+      // the level above that spans it down into it. Higher levels go first,
+      // since what they drop may belong in a slot we then move further down.
+      for (int level = LEVELS - 1; level > 0; level--)
+      {
+         if ((p_time & ((1L << level * SLOT_BITS) - 1)) == 0)
+         {
+            slot = slotOf(p_time, level);
+            wakeup = p_slots[level][slot];
+            p_slots[level][slot] = null;
+
+            for (; wakeup != null; wakeup = next)
+            {
+               next = wakeup.p_next;
+               file(wakeup);
+            }
+         }
+      }
+
+      slot = slotOf(p_time, 0);
+      wakeup = p_slots[0][slot];
+      p_slots[0][slot] = null;
+
+      for (; wakeup != null; wakeup = next)
+      {
+         next = wakeup.p_next;
+         wakeup.p_next = null;
+         due.add(wakeup);
+         p_size--;
+      }
+   } // advance
+
+
+   /**
+    * Files a Wakeup in the lowest level whose current turn it is due in, or in
+    * the top level if none is.
+    *
+    * @param wakeup
+    *           the Wakeup to file.
+    */
+   private void file(Wakeup wakeup)
+   {
+      int level = 0;
+      int slot;
+
+      // The top level may also hold Wakeups due in its next turn; their slot
+      // is only moved down once that turn reaches it.
+      while (level < LEVELS - 1
+               && ((wakeup.p_due ^ p_time) >>> (level + 1) * SLOT_BITS) != 0)
+      {
+         level++;
+      }
+
+      slot = slotOf(wakeup.p_due, level);
+      wakeup.p_next = p_slots[level][slot];
+      p_slots[level][slot] = wakeup;
+   } // file
+
+
+   /**
+    * Returns the slot a tick falls in on a level of the wheel.
+    *
+    * @param tick
+    *           the tick.
+    * @param level
+    *           the level of the wheel.
+    * @return the slot of the tick on that level.
+    */
+   private static int slotOf(long tick, int level)
+   {
+      return (int) (tick >>> level * SLOT_BITS) & (SLOTS - 1);
+   } // slotOf
+
+
+   /**
+    * A FieldOccupant waiting to wake up on a TimingWheel, along with how long
+    * it went to sleep for.
+    */
+   static final class Wakeup
+   {
+      /**
+       * Creates a new Wakeup.
+       *
+       * @param occupant
+       *           the FieldOccupant to wake.
+       */
+      Wakeup(FieldOccupant occupant)
+      {
+         p_occupant = occupant;
+      }
+
+      final FieldOccupant p_occupant;
+
+      // How long the FieldOccupant sleeps, or slept once it is due
+      int                 p_sleep;
+
+      // The tick the FieldOccupant went idle on, or -1 if it isn't idle
+      long                p_idleSince = -1;
+
+      // Whether the FieldOccupant was woken some other way before this came
+      // due
+      boolean             p_cancelled;
+
+      private long        p_due;
+      private Wakeup      p_next;
+   }
+
+   // Each level of the wheel has 2^SLOT_BITS slots
+   private static final int  SLOT_BITS = 6;
+   private static final int  SLOTS     = 1 << SLOT_BITS;
+   private static final int  LEVELS    = 4;
+
+   // Wakeups must be due less than this many ticks ahead
+   public static final long  SPAN      = 1L << LEVELS * SLOT_BITS;
+
+   private final Wakeup[][]  p_slots;
+   private long              p_time;
+   private int               p_size;
+}
@@ -0,0 +1,186 @@
+package foxesandhounds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that a ChunkedFieldStorage keeps its chunks and neighbor counts
+ * straight while threads fill and empty the same chunk, and the Cells around
+ * it, at once.
+ */
+public class ChunkedFieldStorageTest
+{
+   /**
+    * Has several threads set and clear Cells in one chunk and its border,
+    * each thread owning its own Cells, then checks the neighbor counts
+    * against a rescan, empties the Field and checks every chunk is gone.
+    *
+    * @throws Exception
+    *            if a thread failed.
+    */
+   @Test
+   public void concurrentSetAndClear() throws Exception
+   {
+      ChunkedFieldStorage storage = new ChunkedFieldStorage(SIZE, SIZE);
+      Field theField = new Field(storage, new AtomicBoolean());
+      ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+      List<Callable<Void>> tasks = new ArrayList<>();
+
+      for (int t = 0; t < THREADS; t++)
+      {
+         int thread = t;
+
+         tasks.add(() -> {
+            churn(theField, thread);
+            return null;
+         });
+      }
+
+      try
+      {
+         for (Future<Void> done : pool.invokeAll(tasks))
+         {
+            done.get();
+         }
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+
+      checkNeighbors(theField);
+
+      for (int y = 0; y < SIZE; y++)
+      {
+         for (int x = 0; x < SIZE; x++)
+         {
+            theField.setCellAt(x, y, null);
+         }
+      }
+
+      checkNeighbors(theField);
+      assertEquals(0, storage.getChunkCount(), "Chunks left behind");
+   } // concurrentSetAndClear
+
+
+   /**
+    * Fills and empties, at random, the Cells of the middle chunk and its
+    * border that belong to one thread.
+    *
+    * @param theField
+    *           the Field to change.
+    * @param thread
+    *           the number of the thread, which picks its Cells.
+    */
+   private static void churn(Field theField, int thread)
+   {
+      SplittableRandom r = new SplittableRandom(SEED + thread);
+      FieldOccupant fox = new Fox(0, 0, theField, new Phaser());
+      FieldOccupant hound = new Hound(0, 0, theField, new Phaser());
+      int x;
+      int y;
+
+      for (int i = 0; i < CHANGES; i++)
+      {
+         // A Cell in the chunk or one step outside it, that is ours.
+         do
+         {
+            x = r.nextInt(FIRST, LAST + 1);
+            y = r.nextInt(FIRST, LAST + 1);
+         }
+         while ((y * SIZE + x) % THREADS != thread);
+
+         switch (r.nextInt(3))
+         {
+            case 0:
+               theField.setCellAt(x, y, fox);
+               break;
+
+            case 1:
+               theField.setCellAt(x, y, hound);
+               break;
+
+            default:
+               theField.setCellAt(x, y, null);
+         }
+      }
+   } // churn
+
+
+   /**
+    * Checks the neighbor counts of every Cell against the species around it.
+    *
+    * @param theField
+    *           the Field to check.
+    */
+   private static void checkNeighbors(Field theField)
+   {
+      for (int y = 0; y < SIZE; y++)
+      {
+         for (int x = 0; x < SIZE; x++)
+         {
+            assertEquals(countAround(theField, x, y, Field.FOX),
+                     theField.getFoxNeighborsAt(x, y),
+                     "Fox neighbors of " + x + "," + y);
+            assertEquals(countAround(theField, x, y, Field.HOUND),
+                     theField.getHoundNeighborsAt(x, y),
+                     "Hound neighbors of " + x + "," + y);
+         }
+      }
+   } // checkNeighbors
+
+
+   /**
+    * Counts the Cells around a Cell holding a species.
+    *
+    * @param theField
+    *           the Field to scan.
+    * @param x
+    *           is the x-coordinate of the Cell.
+    * @param y
+    *           is the y-coordinate of the Cell.
+    * @param species
+    *           Field.FOX or Field.HOUND.
+    * @return the number of the 8 Cells around holding the species.
+    */
+   private static int countAround(Field theField, int x, int y, byte species)
+   {
+      int count = 0;
+
+      for (int dy = -1; dy <= 1; dy++)
+      {
+         for (int dx = -1; dx <= 1; dx++)
+         {
+            if ((dx != 0 || dy != 0)
+                     && theField.getSpeciesAt(x + dx, y + dy) == species)
+            {
+               count++;
+            }
+         }
+      }
+
+      return count;
+   } // countAround
+
+   // Three chunks across, so the middle chunk has a neighbor on every side
+   private static final int  SIZE    = 3 * ChunkedFieldStorage.CHUNK_SIZE;
+
+   // The Cells changed run from one before the middle chunk to one after it
+   private static final int  FIRST   = ChunkedFieldStorage.CHUNK_SIZE - 1;
+   private static final int  LAST    = 2 * ChunkedFieldStorage.CHUNK_SIZE;
+
+   private static final int  THREADS = 4;
+   private static final int  CHANGES = 50_000;
+   private static final long SEED    = 20_140_402L;
+}
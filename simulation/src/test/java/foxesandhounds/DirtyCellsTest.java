@@ -0,0 +1,86 @@
+package foxesandhounds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that a Field marks a Cell changed, so it gets redrawn, whenever
+ * what is drawn for it changes.
+ */
+public class DirtyCellsTest
+{
+   /**
+    * Makes a Hound hungrier, then feeds it, and checks that each time its
+    * Cell, and only its Cell, is drained with its new hunger.
+    */
+   @Test
+   public void hungerMarksCellDirty()
+   {
+      AtomicBoolean fieldUpdated = new AtomicBoolean();
+      Field theField = new Field(WIDTH, HEIGHT, fieldUpdated);
+      Hound hound = new Hound(X, Y, theField, new Phaser());
+      int fed;
+
+      theField.setCellAt(X, Y, hound);
+      drawnOnce(theField);
+
+      fieldUpdated.set(false);
+      hound.getHungrier(1);
+      fed = hound.getFedStatus();
+
+      assertEquals(List.of(X + "," + Y), drain(theField));
+      assertEquals(fed, theField.getHungerAt(X, Y));
+      assertTrue(fieldUpdated.get(), "Nobody was told the Field changed.");
+
+      fieldUpdated.set(false);
+      hound.eats();
+
+      assertEquals(List.of(X + "," + Y), drain(theField));
+      assertTrue(theField.getHungerAt(X, Y) > fed, "Hunger not redrawn.");
+      assertTrue(fieldUpdated.get(), "Nobody was told the Field changed.");
+   } // hungerMarksCellDirty
+
+
+   /**
+    * Has the Field drawn in full, as a renderer does on its first frames, so
+    * that from then on only changed Cells are drained.
+    *
+    * @param theField
+    *           the Field to draw.
+    */
+   private static void drawnOnce(Field theField)
+   {
+      theField.clearDirtyCells();
+      drain(theField);
+      assertEquals(List.of(), drain(theField));
+   } // drawnOnce
+
+
+   /**
+    * Drains the Cells of a Field that changed.
+    *
+    * @param theField
+    *           the Field to drain.
+    * @return the coordinates of each Cell that changed, as "x,y".
+    */
+   private static List<String> drain(Field theField)
+   {
+      List<String> changed = new ArrayList<>();
+
+      theField.drainDirtyCells((x, y) -> changed.add(x + "," + y));
+
+      return changed;
+   } // drain
+
+   private static final int WIDTH  = 8;
+   private static final int HEIGHT = 6;
+   private static final int X      = 2;
+   private static final int Y      = 3;
+}
@@ -0,0 +1,183 @@
+package foxesandhounds;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Phaser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that what a FieldPopulator places, and the ids it ends up with,
+ * depend only on the seed and not on how many workers fill the Field.
+ */
+public class FieldPopulatorTest
+{
+   /**
+    * Puts back the AgentLauncher other tests expect.
+    */
+   @AfterEach
+   public void tearDown()
+   {
+      FieldOccupant.setLauncher(ThreadLauncher.newPlatformThreadLauncher());
+   } // tearDown
+
+
+   /**
+    * Fills two Fields from the same seed with different numbers of workers
+    * and checks they hold the same species, with the same ids counted from
+    * the first FieldOccupant on each.
+    */
+   @Test
+   public void sameSeedSameLayout()
+   {
+      Field one = populate(1);
+      Field many = populate(WORKERS);
+
+      assertArrayEquals(layout(one), layout(many));
+      assertArrayEquals(ids(one), ids(many));
+   } // sameSeedSameLayout
+
+
+   /**
+    * Checks that FieldOccupants are numbered one after another in Cell
+    * order, however the blocks were scheduled.
+    */
+   @Test
+   public void idsInCellOrder()
+   {
+      Field theField = populate(WORKERS);
+      FieldOccupant occupant;
+      long lastId = -1;
+      int placed = 0;
+
+      for (int y = 0; y < HEIGHT; y++)
+      {
+         for (int x = 0; x < WIDTH; x++)
+         {
+            occupant = theField.getOccupantAt(x, y);
+
+            if (occupant != null)
+            {
+               if (lastId >= 0)
+               {
+                  assertEquals(lastId + 1, occupant.getId(),
+                           "Id at " + x + "," + y);
+               }
+
+               lastId = occupant.getId();
+               placed++;
+            }
+         }
+      }
+
+      assertTrue(placed > 0, "Nothing was placed.");
+   } // idsInCellOrder
+
+
+   /**
+    * Fills a new Field without starting anything placed on it.
+    *
+    * @param workers
+    *           the number of workers filling the Field.
+    * @return the filled Field.
+    */
+   private static Field populate(int workers)
+   {
+      Field theField = new Field(WIDTH, HEIGHT);
+
+      FieldOccupant.setLauncher(new AgentLauncher()
+      {
+         @Override
+         public void launch(FieldOccupant occupant)
+         {
+         }
+
+
+         @Override
+         public void wakeUp(FieldOccupant occupant)
+         {
+         }
+      });
+
+      new FieldPopulator(theField, new Phaser(), PROBABILITY_FOX,
+               PROBABILITY_HOUND, SEED).populate(workers);
+
+      return theField;
+   } // populate
+
+
+   /**
+    * Returns the species in every Cell of a Field, in Cell order.
+    *
+    * @param theField
+    *           the Field to scan.
+    * @return the species of each Cell.
+    */
+   private static byte[] layout(Field theField)
+   {
+      byte[] species = new byte[WIDTH * HEIGHT];
+
+      for (int y = 0; y < HEIGHT; y++)
+      {
+         for (int x = 0; x < WIDTH; x++)
+         {
+            species[y * WIDTH + x] = theField.getSpeciesAt(x, y);
+         }
+      }
+
+      return species;
+   } // layout
+
+
+   /**
+    * Returns the id of the FieldOccupant in every Cell of a Field, in Cell
+    * order, counted from the first one placed so Fields filled one after
+    * another compare equal.
+    *
+    * @param theField
+    *           the Field to scan.
+    * @return the id of each FieldOccupant less the lowest, or -1 for an
+    *         empty Cell.
+    */
+   private static long[] ids(Field theField)
+   {
+      long[] ids = new long[WIDTH * HEIGHT];
+      long first = Long.MAX_VALUE;
+      FieldOccupant occupant;
+
+      for (int y = 0; y < HEIGHT; y++)
+      {
+         for (int x = 0; x < WIDTH; x++)
+         {
+            occupant = theField.getOccupantAt(x, y);
+            ids[y * WIDTH + x] = occupant == null ? -1 : occupant.getId();
+
+            if (occupant != null)
+            {
+               first = Math.min(first, occupant.getId());
+            }
+         }
+      }
+
+      for (int i = 0; i < ids.length; i++)
+      {
+         if (ids[i] >= 0)
+         {
+            ids[i] -= first;
+         }
+      }
+
+      return ids;
+   } // ids
+
+   // Tall enough for several blocks of rows
+   private static final int    WIDTH             = 64;
+   private static final int    HEIGHT            = 100;
+   private static final int    WORKERS           = 4;
+   private static final long   SEED              = 20_140_402L;
+   private static final double PROBABILITY_FOX   = 0.15;
+   private static final double PROBABILITY_HOUND = 0.05;
+}
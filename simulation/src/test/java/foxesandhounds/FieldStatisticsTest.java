@@ -0,0 +1,254 @@
+package foxesandhounds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Phaser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that the populations a Field's FieldStatistics keep as Cells change
+ * always match what a scan of the Field finds, whichever way the Field is
+ * advanced.
+ */
+public class FieldStatisticsTest
+{
+   /**
+    * Puts back the AgentLauncher and starve time other tests expect.
+    */
+   @AfterEach
+   public void tearDown()
+   {
+      FieldOccupant.setLauncher(ThreadLauncher.newPlatformThreadLauncher());
+      Hound.setStarveTime(Hound.DEFAULT_STARVE_TIME);
+   } // tearDown
+
+
+   /**
+    * Steps a locking Field and checks the populations every generation.
+    *
+    * @throws InterruptedException
+    *            if a worker is interrupted.
+    */
+   @Test
+   public void stepEngineLocking() throws InterruptedException
+   {
+      checkStepEngine(false);
+   } // stepEngineLocking
+
+
+   /**
+    * Steps an optimistic Field and checks the populations every generation.
+    *
+    * @throws InterruptedException
+    *            if a worker is interrupted.
+    */
+   @Test
+   public void stepEngineOptimistic() throws InterruptedException
+   {
+      checkStepEngine(true);
+   } // stepEngineOptimistic
+
+
+   /**
+    * Runs an AgentStoreEngine, which only reports through recordBatch, and
+    * checks the populations against its grid every generation.
+    */
+   @Test
+   public void agentStoreEngine()
+   {
+      Field theField = new Field(WIDTH, HEIGHT);
+      AgentStoreEngine engine = new AgentStoreEngine(theField, WORKERS, SEED);
+      FieldStatistics statistics = theField.getStatistics();
+
+      populate(theField, engine);
+
+      for (int generation = 0; generation < GENERATIONS; generation++)
+      {
+         engine.step();
+         assertEquals(count(engine, Field.FOX), statistics.getFoxes(),
+                  "Foxes after generation " + generation);
+         assertEquals(count(engine, Field.HOUND), statistics.getHounds(),
+                  "Hounds after generation " + generation);
+      }
+
+      assertTrue(statistics.getBirths() > 0, "Nobody was ever born.");
+
+      // The engine keeps its own agents, so it lets go of the Field's.
+      assertEquals(0, count(theField, Field.FOX));
+      assertEquals(0, count(theField, Field.HOUND));
+   } // agentStoreEngine
+
+
+   /**
+    * Runs a BitboardEngine, which also reports through recordBatch, and
+    * checks the populations against its bit-planes every generation.
+    */
+   @Test
+   public void bitboardEngine()
+   {
+      Field theField = new Field(WIDTH, HEIGHT);
+      BitboardEngine engine = new BitboardEngine(theField, WORKERS);
+      FieldStatistics statistics = theField.getStatistics();
+
+      populate(theField, engine);
+
+      for (int generation = 0; generation < GENERATIONS; generation++)
+      {
+         engine.step();
+         assertEquals(count(engine, Field.FOX), statistics.getFoxes(),
+                  "Foxes after generation " + generation);
+         assertEquals(count(engine, Field.HOUND), statistics.getHounds(),
+                  "Hounds after generation " + generation);
+      }
+   } // bitboardEngine
+
+
+   /**
+    * Steps a Field with a StepEngine and checks the populations against a
+    * scan of the Field every generation.
+    *
+    * @param optimistic
+    *           true to change Cells with transactions instead of locks.
+    * @throws InterruptedException
+    *            if a worker is interrupted.
+    */
+   private static void checkStepEngine(boolean optimistic)
+            throws InterruptedException
+   {
+      Field theField = new Field(WIDTH, HEIGHT);
+      StepEngine engine;
+      FieldStatistics statistics = theField.getStatistics();
+
+      theField.setOptimistic(optimistic);
+      engine = new StepEngine(theField, WORKERS, SEED);
+      populate(theField, engine);
+
+      assertEquals(count(theField, Field.FOX), statistics.getFoxes());
+      assertEquals(count(theField, Field.HOUND), statistics.getHounds());
+
+      for (int generation = 0; generation < GENERATIONS; generation++)
+      {
+         engine.step();
+         assertEquals(count(theField, Field.FOX), statistics.getFoxes(),
+                  "Foxes after generation " + generation);
+         assertEquals(count(theField, Field.HOUND), statistics.getHounds(),
+                  "Hounds after generation " + generation);
+      }
+
+      assertTrue(statistics.getBirths() > 0, "Nobody was ever born.");
+   } // checkStepEngine
+
+
+   /**
+    * Makes an engine the AgentLauncher and fills a Field for it.
+    *
+    * @param theField
+    *           the empty Field to fill.
+    * @param engine
+    *           the engine that will advance the Field.
+    */
+   private static void populate(Field theField, GenerationEngine engine)
+   {
+      FieldOccupant.setLauncher(engine);
+      Hound.setStarveTime(Hound.DEFAULT_STARVE_TICKS);
+      new FieldPopulator(theField, new Phaser(), PROBABILITY_FOX,
+               PROBABILITY_HOUND, SEED).populate(WORKERS);
+   } // populate
+
+
+   /**
+    * Counts the Cells of a Field holding a species.
+    *
+    * @param theField
+    *           the Field to scan.
+    * @param species
+    *           Field.FOX or Field.HOUND.
+    * @return the number of Cells holding the species.
+    */
+   private static long count(Field theField, byte species)
+   {
+      long count = 0;
+
+      for (int y = 0; y < theField.getHeight(); y++)
+      {
+         for (int x = 0; x < theField.getWidth(); x++)
+         {
+            if (theField.getSpeciesAt(x, y) == species)
+            {
+               count++;
+            }
+         }
+      }
+
+      return count;
+   } // count
+
+
+   /**
+    * Counts the Cells of an AgentStoreEngine's grid holding a species.
+    *
+    * @param engine
+    *           the engine to scan.
+    * @param species
+    *           Field.FOX or Field.HOUND.
+    * @return the number of Cells holding the species.
+    */
+   private static long count(AgentStoreEngine engine, byte species)
+   {
+      long count = 0;
+
+      for (int y = 0; y < HEIGHT; y++)
+      {
+         for (int x = 0; x < WIDTH; x++)
+         {
+            if (engine.getSpeciesAt(x, y) == species)
+            {
+               count++;
+            }
+         }
+      }
+
+      return count;
+   } // count
+
+
+   /**
+    * Counts the Cells of a BitboardEngine's bit-planes holding a species.
+    *
+    * @param engine
+    *           the engine to scan.
+    * @param species
+    *           Field.FOX or Field.HOUND.
+    * @return the number of Cells holding the species.
+    */
+   private static long count(BitboardEngine engine, byte species)
+   {
+      long count = 0;
+
+      for (int y = 0; y < HEIGHT; y++)
+      {
+         for (int x = 0; x < WIDTH; x++)
+         {
+            if (engine.getSpeciesAt(x, y) == species)
+            {
+               count++;
+            }
+         }
+      }
+
+      return count;
+   } // count
+
+   // A Field small enough to scan every generation, run long enough for
+   // Foxes to be born and eaten and Hounds to starve
+   private static final int    WIDTH             = 64;
+   private static final int    HEIGHT            = 48;
+   private static final int    GENERATIONS       = 40;
+   private static final int    WORKERS           = 2;
+   private static final long   SEED              = 20_140_402L;
+   private static final double PROBABILITY_FOX   = 0.15;
+   private static final double PROBABILITY_HOUND = 0.05;
+}
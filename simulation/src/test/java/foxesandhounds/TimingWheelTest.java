@@ -0,0 +1,228 @@
+package foxesandhounds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that a TimingWheel hands out every Wakeup on exactly the tick it is
+ * due, across the boundaries where Wakeups move down from one level of the
+ * wheel to the next.
+ */
+public class TimingWheelTest
+{
+   /**
+    * Schedules Wakeups on both sides of every level's boundary, and at
+    * random, from current ticks that sit just before and on those
+    * boundaries, and checks each comes due on time.
+    */
+   @Test
+   public void cascadeBoundaries()
+   {
+      SplittableRandom r = new SplittableRandom(SEED);
+
+      for (long start : STARTS)
+      {
+         TimingWheel wheel = new TimingWheel();
+         Map<TimingWheel.Wakeup, Long> expected = new IdentityHashMap<>();
+         List<TimingWheel.Wakeup> due = new ArrayList<>();
+
+         while (wheel.getTime() < start)
+         {
+            wheel.advance(due);
+         }
+
+         for (long delay : DELAYS)
+         {
+            schedule(wheel, expected, delay);
+         }
+
+         for (int i = 0; i < RANDOM_DELAYS; i++)
+         {
+            schedule(wheel, expected, r.nextLong(1, TimingWheel.SPAN));
+         }
+
+         drain(wheel, expected);
+      }
+   } // cascadeBoundaries
+
+
+   /**
+    * Checks that only delays from 1 to SPAN - 1 can be scheduled.
+    */
+   @Test
+   public void delayOutOfRange()
+   {
+      TimingWheel wheel = new TimingWheel();
+
+      assertThrows(IllegalArgumentException.class,
+               () -> wheel.schedule(new TimingWheel.Wakeup(null), 0));
+      assertThrows(IllegalArgumentException.class,
+               () -> wheel.schedule(new TimingWheel.Wakeup(null), -1));
+      assertThrows(IllegalArgumentException.class,
+               () -> wheel.schedule(new TimingWheel.Wakeup(null),
+                        TimingWheel.SPAN));
+      assertEquals(0, wheel.size());
+   } // delayOutOfRange
+
+
+   /**
+    * Cancels some Wakeups, replacing them with new ones as EventEngine does,
+    * and checks the cancelled ones still come due on time with the flag set
+    * while their replacements come due on theirs.
+    */
+   @Test
+   public void cancelledWakeups()
+   {
+      TimingWheel wheel = new TimingWheel();
+      Map<TimingWheel.Wakeup, Long> expected = new IdentityHashMap<>();
+      List<TimingWheel.Wakeup> cancelled = new ArrayList<>();
+      List<TimingWheel.Wakeup> due = new ArrayList<>();
+      TimingWheel.Wakeup wakeup;
+
+      for (long delay : new long[] { 5, 64, 70, 4096, 5000 })
+      {
+         wakeup = schedule(wheel, expected, delay);
+         wakeup.p_cancelled = true;
+         cancelled.add(wakeup);
+      }
+
+      // Wake everybody some other way on tick 3.
+      for (int i = 0; i < 3; i++)
+      {
+         wheel.advance(due);
+      }
+      assertTrue(due.isEmpty(), "Came due early: " + due);
+
+      for (int i = 0; i < cancelled.size(); i++)
+      {
+         schedule(wheel, expected, 1 + i * 100);
+      }
+
+      drain(wheel, expected);
+
+      for (TimingWheel.Wakeup each : cancelled)
+      {
+         assertTrue(each.p_cancelled);
+      }
+   } // cancelledWakeups
+
+
+   /**
+    * Schedules a Wakeup again each time it comes due, with delays that land
+    * on and around every level's boundary, and checks it comes due on time
+    * each time.
+    */
+   @Test
+   public void rearmedWakeups()
+   {
+      TimingWheel wheel = new TimingWheel();
+      TimingWheel.Wakeup wakeup = new TimingWheel.Wakeup(null);
+      List<TimingWheel.Wakeup> due = new ArrayList<>();
+      long expected;
+
+      for (long delay : DELAYS)
+      {
+         // Leave the wheel somewhere other than on a boundary now and then.
+         if (delay % 2 == 0)
+         {
+            wheel.advance(due);
+         }
+
+         expected = wheel.getTime() + delay;
+         wheel.schedule(wakeup, delay);
+
+         do
+         {
+            assertTrue(due.isEmpty(),
+                     "Came due early on tick " + wheel.getTime());
+            wheel.advance(due);
+         }
+         while (wheel.getTime() < expected);
+
+         assertEquals(List.of(wakeup), due, "Due on tick " + expected);
+         assertEquals(0, wheel.size());
+         due.clear();
+      }
+   } // rearmedWakeups
+
+
+   /**
+    * Schedules a new Wakeup and notes the tick it should come due on.
+    *
+    * @param wheel
+    *           the TimingWheel to schedule on.
+    * @param expected
+    *           the tick each pending Wakeup should come due on.
+    * @param delay
+    *           how many ticks from now the Wakeup is due.
+    * @return the Wakeup scheduled.
+    */
+   private static TimingWheel.Wakeup schedule(TimingWheel wheel,
+            Map<TimingWheel.Wakeup, Long> expected, long delay)
+   {
+      TimingWheel.Wakeup wakeup = new TimingWheel.Wakeup(null);
+
+      wheel.schedule(wakeup, delay);
+      expected.put(wakeup, wheel.getTime() + delay);
+
+      return wakeup;
+   } // schedule
+
+
+   /**
+    * Advances a TimingWheel until every pending Wakeup has come due,
+    * checking each comes due on the tick expected and only once.
+    *
+    * @param wheel
+    *           the TimingWheel to advance.
+    * @param expected
+    *           the tick each pending Wakeup should come due on; emptied as
+    *           they come due.
+    */
+   private static void drain(TimingWheel wheel,
+            Map<TimingWheel.Wakeup, Long> expected)
+   {
+      List<TimingWheel.Wakeup> due = new ArrayList<>();
+      Long tick;
+
+      while (!expected.isEmpty())
+      {
+         assertEquals(expected.size(), wheel.size());
+         wheel.advance(due);
+
+         for (TimingWheel.Wakeup wakeup : due)
+         {
+            tick = expected.remove(wakeup);
+            assertNotNull(tick, "Handed out twice on " + wheel.getTime());
+            assertEquals(tick.longValue(), wheel.getTime());
+         }
+
+         due.clear();
+      }
+
+      assertEquals(0, wheel.size());
+   } // drain
+
+   // Delays on and around the span of each level, and the longest allowed
+   private static final long[] DELAYS        = { 1, 2, 63, 64, 65, 127, 128,
+            4095, 4096, 4097, 262_143, 262_144, 262_145,
+            TimingWheel.SPAN - 2, TimingWheel.SPAN - 1 };
+
+   // Current ticks to schedule from: the start, and just before, on and just
+   // after the turn of each level
+   private static final long[] STARTS        = { 0, 1, 63, 64, 4095, 4096,
+            4097, 262_143, 262_144, 262_200 };
+
+   private static final int    RANDOM_DELAYS = 200;
+   private static final long   SEED          = 20_140_402L;
+}